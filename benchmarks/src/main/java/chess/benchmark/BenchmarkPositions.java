@@ -0,0 +1,68 @@
+package chess.benchmark;
+
+import chess.GameState;
+import chess.Player;
+import chess.pieces.*;
+
+/**
+ * The corpus of positions that the benchmarks run against
+ */
+public final class BenchmarkPositions {
+
+    public static final String OPENING = "opening";
+    public static final String MIDDLEGAME = "middlegame";
+    public static final String ENDGAME = "endgame";
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Build one of the corpus positions
+     * @param name OPENING, MIDDLEGAME or ENDGAME
+     * @return A new game state in that position
+     */
+    public static GameState create(String name) {
+        GameState gameState = new GameState();
+
+        if (OPENING.equals(name)) {
+            gameState.reset();
+            makeMoves(gameState, "e2 e4", "e7 e5", "g1 f3", "b8 c6", "f1 b5", "a7 a6");
+        } else if (MIDDLEGAME.equals(name)) {
+            // Queen's Gambit Declined, with White to move
+            gameState.reset();
+            makeMoves(gameState, "d2 d4", "d7 d5", "c2 c4", "e7 e6", "b1 c3", "g8 f6", "c1 g5", "f8 e7",
+                    "e2 e3", "b8 d7", "g1 f3", "h7 h6", "g5 h4", "b7 b6", "c4 d5", "e6 d5",
+                    "f1 d3", "c8 b7", "d1 c2", "c7 c5");
+        } else if (ENDGAME.equals(name)) {
+            gameState.placePiece(new King(Player.White), "g2");
+            gameState.placePiece(new Queen(Player.White), "d2");
+            gameState.placePiece(new Rook(Player.White), "d1");
+            gameState.placePiece(new Bishop(Player.White), "e3");
+            gameState.placePiece(new Knight(Player.White), "f3");
+            gameState.placePiece(new Pawn(Player.White), "f2");
+            gameState.placePiece(new Pawn(Player.White), "g3");
+            gameState.placePiece(new Pawn(Player.White), "h2");
+
+            gameState.placePiece(new King(Player.Black), "g7");
+            gameState.placePiece(new Queen(Player.Black), "c7");
+            gameState.placePiece(new Rook(Player.Black), "e8");
+            gameState.placePiece(new Bishop(Player.Black), "b7");
+            gameState.placePiece(new Knight(Player.Black), "d7");
+            gameState.placePiece(new Pawn(Player.Black), "f7");
+            gameState.placePiece(new Pawn(Player.Black), "g6");
+            gameState.placePiece(new Pawn(Player.Black), "h7");
+        } else {
+            throw new IllegalArgumentException("Unknown benchmark position: " + name);
+        }
+
+        return gameState;
+    }
+
+    private static void makeMoves(GameState gameState, String... moves) {
+        for (String move : moves) {
+            if (!gameState.makeMove(move)) {
+                throw new IllegalStateException("Benchmark move is not legal: " + move);
+            }
+        }
+    }
+}
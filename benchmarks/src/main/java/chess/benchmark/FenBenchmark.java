@@ -0,0 +1,68 @@
+package chess.benchmark;
+
+import chess.CompactPosition;
+import chess.Fen;
+import chess.GameState;
+import chess.board.BitboardBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures setting up positions from FEN and writing them back out, against the same round trip
+ * through the compact binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FenBenchmark {
+
+    @Param({
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    })
+    public String fen;
+
+    private GameState gameState;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() {
+        gameState = Fen.parse(fen);
+        encoded = ByteBuffer.allocate(CompactPosition.SIZE);
+        CompactPosition.encode(gameState, encoded);
+    }
+
+    @Benchmark
+    public GameState parse() {
+        return Fen.parse(fen);
+    }
+
+    @Benchmark
+    public GameState parseBitboard() {
+        return Fen.parse(fen, new BitboardBoard());
+    }
+
+    @Benchmark
+    public String toFen() {
+        return Fen.toFen(gameState);
+    }
+
+    @Benchmark
+    public GameState decodeCompact() {
+        encoded.clear();
+        return CompactPosition.decode(encoded);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeCompact() {
+        encoded.clear();
+        CompactPosition.encode(gameState, encoded);
+        return encoded;
+    }
+}
@@ -0,0 +1,98 @@
+package chess.benchmark;
+
+import chess.GameState;
+import chess.MoveList;
+import chess.pieces.Piece;
+import chess.search.Evaluator;
+import chess.search.PieceSquareEvaluator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the GameState queries that sit on the hot path of playing and analysing games.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStateBenchmark {
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    private GameState gameState;
+    private List<Piece> pieces;
+    private MoveList moves;
+    private Evaluator evaluator;
+
+    @Setup
+    public void setUp() {
+        gameState = BenchmarkPositions.create(position);
+        pieces = new ArrayList<Piece>(gameState.getPiecesOnBoard(gameState.getCurrentPlayer()));
+        moves = new MoveList();
+        evaluator = new PieceSquareEvaluator();
+    }
+
+    /**
+     * Legal moves for every piece of the player to move
+     */
+    @Benchmark
+    public void findValidMovesFor(Blackhole blackhole) {
+        for (Piece piece : pieces) {
+            blackhole.consume(gameState.findValidMovesFor(piece));
+        }
+    }
+
+    /**
+     * The same legal moves, packed into a reused buffer
+     */
+    @Benchmark
+    public int generateMoves() {
+        return gameState.generateMoves(moves);
+    }
+
+    /**
+     * Only the captures, as a quiescence search asks for them
+     */
+    @Benchmark
+    public int generateCaptures() {
+        return gameState.generateCaptures(moves);
+    }
+
+    /**
+     * Static exchange evaluation of every legal move, as move ordering asks for captures
+     */
+    @Benchmark
+    public int seeScore() {
+        int size = gameState.generateMoves(moves);
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += gameState.seeScore(moves.get(i));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public boolean isInCheck() {
+        return gameState.isInCheck();
+    }
+
+    @Benchmark
+    public boolean isGameOver() {
+        return gameState.isGameOver();
+    }
+
+    /**
+     * Material and piece-square score, read from the incrementally kept totals
+     */
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(gameState);
+    }
+}
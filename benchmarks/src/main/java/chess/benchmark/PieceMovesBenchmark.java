@@ -0,0 +1,57 @@
+package chess.benchmark;
+
+import chess.GameState;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Piece.getNextPositions for every piece of one type belonging to the player to move.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PieceMovesBenchmark {
+
+    @Param({BenchmarkPositions.OPENING, BenchmarkPositions.MIDDLEGAME, BenchmarkPositions.ENDGAME})
+    public String position;
+
+    @Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+    public PieceType type;
+
+    private final List<Piece> pieces = new ArrayList<Piece>();
+    private final List<Position> origins = new ArrayList<Position>();
+
+    @Setup
+    public void setUp() {
+        GameState gameState = BenchmarkPositions.create(position);
+
+        for (char col = GameState.MIN_COLUMN; col <= GameState.MAX_COLUMN; col++) {
+            for (int row = GameState.MIN_ROW; row <= GameState.MAX_ROW; row++) {
+                Position square = new Position(col, row);
+                Piece piece = gameState.getPieceAt(square);
+                if (piece != null && piece.getType() == type
+                        && piece.getPlayer() == gameState.getCurrentPlayer()) {
+                    pieces.add(piece);
+                    origins.add(square);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void getNextPositions(Blackhole blackhole) {
+        for (int i = 0; i < pieces.size(); i++) {
+            blackhole.consume(pieces.get(i).getNextPositions(origins.get(i)));
+        }
+    }
+}
@@ -15,8 +15,15 @@ public class CLI {
     private final BufferedReader inReader;
     private final PrintStream outStream;
 
+    /**
+     * The number of positions to remember legal moves and check status for
+     */
+    private static final int POSITION_CACHE_SIZE = 4096;
+
     private GameState gameState = null;
 
+    private final PositionCache positionCache = new PositionCache(POSITION_CACHE_SIZE);
+
     public CLI(InputStream inputStream, PrintStream outStream) {
         this.inReader = new BufferedReader(new InputStreamReader(inputStream));
         this.outStream = outStream;
@@ -52,8 +59,11 @@ public class CLI {
             showBoard();
             Player currentPlayer = gameState.getCurrentPlayer();
 
-            if (gameState.isGameOver()) {
+            GameResult result = gameState.getResult();
+            if (result == GameResult.Checkmate) {
                 writeOutput("GAME OVER!\n\nThe winner is: " + currentPlayer.other());
+            } else if (result == GameResult.Stalemate) {
+                writeOutput("GAME OVER!\n\nStalemate: the game is a draw");
             } else if (gameState.isInCheck()) {
                 writeOutput(currentPlayer + " is in check");
             } else {
@@ -86,6 +96,7 @@ public class CLI {
 
     private void doNewGame() {
         gameState = new GameState();
+        gameState.setPositionCache(positionCache);
         gameState.reset();
     }
 
@@ -151,7 +162,7 @@ public class CLI {
         builder.append(rowLabel);
 
         for (char c = GameState.MIN_COLUMN; c <= GameState.MAX_COLUMN; c++) {
-            Piece piece = gameState.getPieceAt(new Position(c, rowLabel));
+            Piece piece = gameState.getPieceAt(Position.of(c, rowLabel));
             char pieceChar = piece == null ? ' ' : piece.getIdentifier();
             builder.append(" | ").append(pieceChar);
         }
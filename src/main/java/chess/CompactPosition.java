@@ -0,0 +1,203 @@
+package chess;
+
+import chess.board.Board;
+import chess.board.HashMapBoard;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes positions in a fixed-size binary form, for storing and sending positions far more
+ * cheaply than as FEN.  Each position takes SIZE bytes:
+ * <ul>
+ *     <li>8 bytes: the occupied squares, bit N for the square whose index is N</li>
+ *     <li>16 bytes: a 4-bit code for the piece on each occupied square, in square order, two to a
+ *     byte with the first in the low half.  The code is the piece type's ordinal, plus 8 for Black.</li>
+ *     <li>1 byte: 1 if Black is to move, plus the castling rights shifted left by one</li>
+ *     <li>1 byte: the en passant square, or -1 for none</li>
+ *     <li>1 byte: the halfmove clock, unsigned</li>
+ *     <li>2 bytes: the fullmove number, unsigned</li>
+ * </ul>
+ * Multi-byte fields use the buffer's byte order.  Only positions of at most 32 standard pieces can be
+ * written.
+ */
+public final class CompactPosition {
+
+    /**
+     * The number of bytes in an encoded position
+     */
+    public static final int SIZE = 29;
+
+    /**
+     * The most pieces an encoded position can hold
+     */
+    public static final int MAX_PIECES = 32;
+
+    private static final int BLACK = 8;
+    private static final int TYPE_MASK = 7;
+
+    private CompactPosition() {
+    }
+
+    /**
+     * Write a game's position at the buffer's position, advancing it by SIZE
+     * @param gameState The game
+     * @param buffer Where to write
+     * @throws IllegalArgumentException If the position has too many or non-standard pieces, or its
+     * clocks are too large to store
+     * @throws java.nio.BufferOverflowException If there are fewer than SIZE bytes remaining
+     */
+    public static void encode(GameState gameState, ByteBuffer buffer) {
+        long occupied = gameState.getBoard().getOccupancy();
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces to encode: " + Long.bitCount(occupied));
+        }
+
+        int halfmoveClock = gameState.getHalfmoveClock();
+        int fullmoveNumber = gameState.getFullmoveNumber();
+        if (halfmoveClock > 0xff || fullmoveNumber > 0xffff) {
+            throw new IllegalArgumentException("Move clocks too large to encode: " + halfmoveClock + ", " + fullmoveNumber);
+        }
+
+        // Gather the piece codes first so that nothing is written for a position that cannot be encoded
+        long codes = 0;
+        long moreCodes = 0;
+        int count = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            Piece piece = gameState.getPieceAt(Position.of(Long.numberOfTrailingZeros(remaining)));
+            PieceType type = piece.getType();
+            if (type == null) {
+                throw new IllegalArgumentException("Only standard pieces can be encoded: " + piece);
+            }
+
+            long code = type.ordinal() | (piece.getPlayer() == Player.Black ? BLACK : 0);
+            if (count < MAX_PIECES / 2) {
+                codes |= code << (count * 4);
+            } else {
+                moreCodes |= code << ((count - MAX_PIECES / 2) * 4);
+            }
+            count++;
+        }
+
+        buffer.putLong(occupied);
+        putNibbles(buffer, codes);
+        putNibbles(buffer, moreCodes);
+
+        int flags = gameState.getCastlingRights() << 1;
+        if (gameState.getCurrentPlayer() == Player.Black) {
+            flags |= 1;
+        }
+        buffer.put((byte) flags);
+
+        Position enPassant = gameState.getEnPassantSquare();
+        buffer.put((byte) (enPassant == null ? -1 : enPassant.getIndex()));
+        buffer.put((byte) halfmoveClock);
+        buffer.putShort((short) fullmoveNumber);
+    }
+
+    /**
+     * Write a game's position into a new array
+     * @param gameState The game
+     * @return SIZE bytes, big-endian
+     * @throws IllegalArgumentException If the position cannot be encoded
+     */
+    public static byte[] encode(GameState gameState) {
+        byte[] bytes = new byte[SIZE];
+        encode(gameState, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    /**
+     * Set up a game from an encoded position, storing pieces in a HashMapBoard
+     * @param buffer The position is read from the buffer's position, which is advanced by SIZE
+     * @return A new game in that position
+     * @throws IllegalArgumentException If the bytes are not a valid encoded position
+     * @throws java.nio.BufferUnderflowException If there are fewer than SIZE bytes remaining
+     */
+    public static GameState decode(ByteBuffer buffer) {
+        return decode(buffer, new HashMapBoard());
+    }
+
+    /**
+     * Set up a game from an encoded position
+     * @param buffer The position is read from the buffer's position, which is advanced by SIZE
+     * @param board An empty board to hold the game's pieces
+     * @return A new game in that position
+     * @throws IllegalArgumentException If the bytes are not a valid encoded position
+     * @throws java.nio.BufferUnderflowException If there are fewer than SIZE bytes remaining
+     */
+    public static GameState decode(ByteBuffer buffer, Board board) {
+        long occupied = buffer.getLong();
+        long codes = getNibbles(buffer);
+        long moreCodes = getNibbles(buffer);
+        int flags = buffer.get() & 0xff;
+        int enPassant = buffer.get();
+        int halfmoveClock = buffer.get() & 0xff;
+        int fullmoveNumber = buffer.getShort() & 0xffff;
+
+        if (Long.bitCount(occupied) > MAX_PIECES) {
+            throw new IllegalArgumentException("Too many pieces in encoded position: " + Long.bitCount(occupied));
+        }
+        if (flags >> 5 != 0 || enPassant < -1 || enPassant >= GameState.NUM_SQUARES) {
+            throw new IllegalArgumentException("Bad state flags in encoded position");
+        }
+
+        GameState gameState = new GameState(board);
+        int count = 0;
+        for (long remaining = occupied; remaining != 0; remaining &= remaining - 1) {
+            int code = (int) (count < MAX_PIECES / 2
+                    ? codes >>> (count * 4)
+                    : moreCodes >>> ((count - MAX_PIECES / 2) * 4)) & 0xf;
+            int ordinal = code & TYPE_MASK;
+            if (ordinal >= PieceType.COUNT) {
+                throw new IllegalArgumentException("Bad piece code in encoded position: " + code);
+            }
+
+            Player player = (code & BLACK) != 0 ? Player.Black : Player.White;
+            Piece piece = PieceType.forOrdinal(ordinal).newPiece(player);
+            gameState.placePiece(piece, Position.of(Long.numberOfTrailingZeros(remaining)));
+            count++;
+        }
+
+        if ((flags & 1) != 0) {
+            gameState.setCurrentPlayer(Player.Black);
+        }
+        gameState.setCastlingRights(flags >> 1);
+        gameState.setEnPassantSquare(enPassant < 0 ? null : Position.of(enPassant));
+        gameState.setHalfmoveClock(halfmoveClock);
+        gameState.setFullmoveNumber(fullmoveNumber);
+
+        return gameState;
+    }
+
+    /**
+     * Set up a game from an encoded position
+     * @param bytes SIZE bytes, big-endian
+     * @return A new game in that position
+     * @throws IllegalArgumentException If the bytes are not a valid encoded position
+     */
+    public static GameState decode(byte[] bytes) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Encoded positions are " + SIZE + " bytes, not " + bytes.length);
+        }
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Write sixteen 4-bit codes, lowest first, so that the layout does not depend on byte order
+     */
+    private static void putNibbles(ByteBuffer buffer, long codes) {
+        for (int i = 0; i < 8; i++) {
+            buffer.put((byte) (codes >>> (i * 8)));
+        }
+    }
+
+    private static long getNibbles(ByteBuffer buffer) {
+        long codes = 0;
+        for (int i = 0; i < 8; i++) {
+            codes |= (buffer.get() & 0xffL) << (i * 8);
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,228 @@
+package chess;
+
+import chess.board.Board;
+import chess.board.HashMapBoard;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation: piece placement, side to move, castling
+ * rights, en passant square, halfmove clock and fullmove number.  The parser walks the string one
+ * character at a time and places pieces by square index, so no strings are split or parsed into
+ * Positions along the way.  The two clock fields may be left off, as they are in EPD records.
+ *
+ * Note that FEN writes White's pieces in upper case, the reverse of Piece.getIdentifier.
+ */
+public final class Fen {
+
+    /**
+     * The standard starting position
+     */
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /**
+     * The castling letters, in the order of the GameState castling right bits
+     */
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    private Fen() {
+    }
+
+    /**
+     * Set up a game from a FEN string, storing pieces in a HashMapBoard
+     * @param fen The position
+     * @return A new game in that position
+     * @throws InvalidFenException If the string is not valid FEN
+     */
+    public static GameState parse(String fen) {
+        return parse(fen, new HashMapBoard());
+    }
+
+    /**
+     * Set up a game from a FEN string
+     * @param fen The position
+     * @param board An empty board to hold the game's pieces
+     * @return A new game in that position
+     * @throws InvalidFenException If the string is not valid FEN
+     */
+    public static GameState parse(String fen, Board board) {
+        GameState gameState = new GameState(board);
+        int length = fen.length();
+        int i = 0;
+
+        // Piece placement, from a8 across and down to h1
+        int row = GameState.MAX_ROW - 1;
+        int column = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (column != GameState.NUM_COLUMNS || row == 0) {
+                    throw new InvalidFenException("Misplaced '/' at character " + i, fen);
+                }
+                row--;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > GameState.NUM_COLUMNS) {
+                    throw new InvalidFenException("Too many squares in row " + (row + 1), fen);
+                }
+            } else {
+                PieceType type = PieceType.forIdentifier(c);
+                if (type == null || column >= GameState.NUM_COLUMNS) {
+                    throw new InvalidFenException("Unexpected '" + c + "' at character " + i, fen);
+                }
+                Player player = Character.isUpperCase(c) ? Player.White : Player.Black;
+                gameState.placePiece(type.newPiece(player), Position.of(row * GameState.NUM_COLUMNS + column));
+                column++;
+            }
+        }
+        if (row != 0 || column != GameState.NUM_COLUMNS) {
+            throw new InvalidFenException("Piece placement does not cover the board", fen);
+        }
+
+        // Side to move
+        i = skipSpace(fen, i);
+        if (i >= length) {
+            throw new InvalidFenException("Missing side to move", fen);
+        }
+        char side = fen.charAt(i++);
+        if (side == 'b') {
+            gameState.setCurrentPlayer(Player.Black);
+        } else if (side != 'w') {
+            throw new InvalidFenException("Side to move must be 'w' or 'b'", fen);
+        }
+
+        // Castling rights
+        i = skipSpace(fen, i);
+        int castlingRights = 0;
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                int letter = CASTLING_LETTERS.indexOf(fen.charAt(i));
+                if (letter < 0) {
+                    throw new InvalidFenException("Unexpected castling right '" + fen.charAt(i) + "'", fen);
+                }
+                castlingRights |= 1 << letter;
+            }
+        }
+        gameState.setCastlingRights(castlingRights);
+
+        // En passant square
+        i = skipSpace(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i + 1 < length) {
+            char file = fen.charAt(i);
+            char rank = fen.charAt(i + 1);
+            if (file < GameState.MIN_COLUMN || file > GameState.MAX_COLUMN || rank < '1' || rank > '8') {
+                throw new InvalidFenException("Bad en passant square", fen);
+            }
+            gameState.setEnPassantSquare(Position.of((rank - '1') * GameState.NUM_COLUMNS + (file - GameState.MIN_COLUMN)));
+            i += 2;
+        } else {
+            throw new InvalidFenException("Missing en passant square", fen);
+        }
+
+        // Optional clocks
+        i = skipSpace(fen, i);
+        if (i < length) {
+            int end = skipNumber(fen, i);
+            gameState.setHalfmoveClock(parseNumber(fen, i, end));
+            i = skipSpace(fen, end);
+            if (i < length) {
+                end = skipNumber(fen, i);
+                gameState.setFullmoveNumber(parseNumber(fen, i, end));
+                i = skipSpace(fen, end);
+            }
+        }
+        if (i < length) {
+            throw new InvalidFenException("Unexpected text at character " + i, fen);
+        }
+
+        return gameState;
+    }
+
+    /**
+     * Describe a game's position in FEN
+     * @param gameState The game
+     * @return The FEN string
+     */
+    public static String toFen(GameState gameState) {
+        StringBuilder fen = new StringBuilder(90);
+
+        for (int row = GameState.MAX_ROW - 1; row >= 0; row--) {
+            int empty = 0;
+            for (int column = 0; column < GameState.NUM_COLUMNS; column++) {
+                Piece piece = gameState.getPieceAt(Position.of(row * GameState.NUM_COLUMNS + column));
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char id = piece.getIdentifier();
+                fen.append(piece.getPlayer() == Player.White ? Character.toUpperCase(id) : Character.toLowerCase(id));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(gameState.getCurrentPlayer() == Player.White ? " w " : " b ");
+
+        int castlingRights = gameState.getCastlingRights();
+        if (castlingRights == 0) {
+            fen.append('-');
+        } else {
+            for (int letter = 0; letter < CASTLING_LETTERS.length(); letter++) {
+                if ((castlingRights & 1 << letter) != 0) {
+                    fen.append(CASTLING_LETTERS.charAt(letter));
+                }
+            }
+        }
+
+        Position enPassant = gameState.getEnPassantSquare();
+        fen.append(' ').append(enPassant == null ? "-" : enPassant.toString());
+        fen.append(' ').append(gameState.getHalfmoveClock());
+        fen.append(' ').append(gameState.getFullmoveNumber());
+
+        return fen.toString();
+    }
+
+    private static int skipSpace(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(String fen, int i) {
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(String fen, int start, int end) {
+        if (start == end || end - start > 9) {
+            throw new InvalidFenException("Bad move clock", fen);
+        }
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new InvalidFenException("Bad move clock", fen);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
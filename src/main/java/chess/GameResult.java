@@ -0,0 +1,29 @@
+package chess;
+
+/**
+ * Where a game stands, as far as the position on the board can tell
+ */
+public enum GameResult {
+    /**
+     * The player to move has at least one legal move
+     */
+    InProgress,
+
+    /**
+     * The player to move is in check and has no legal move, and so has lost
+     */
+    Checkmate,
+
+    /**
+     * The player to move is not in check but has no legal move, so the game is drawn
+     */
+    Stalemate;
+
+    /**
+     * Check whether the game has ended
+     * @return True unless the game is still in progress
+     */
+    public boolean isOver() {
+        return this != InProgress;
+    }
+}
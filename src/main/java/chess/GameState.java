@@ -1,5 +1,11 @@
 package chess;
 
+import chess.board.AttackTables;
+import chess.board.Board;
+import chess.board.HashMapBoard;
+import chess.board.Magics;
+import chess.board.PieceSquareTables;
+import chess.board.Zobrist;
 import chess.pieces.*;
 
 import java.util.*;
@@ -14,23 +20,196 @@ public class GameState {
     public static final int MAX_ROW = 8;
     public static final char MIN_COLUMN = 'a';
     public static final char MAX_COLUMN = 'h';
+    public static final int NUM_COLUMNS = MAX_COLUMN - MIN_COLUMN + 1;
+    public static final int NUM_SQUARES = NUM_COLUMNS * (MAX_ROW - MIN_ROW + 1);
+
+    /**
+     * Castling rights, as bits of the value returned by getCastlingRights
+     */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 1 << 1;
+    public static final int BLACK_KINGSIDE = 1 << 2;
+    public static final int BLACK_QUEENSIDE = 1 << 3;
+    public static final int ALL_CASTLING = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
 
     private Player currentPlayer = Player.White;
 
-    private final Map<Position, Piece> positionToPieceMap;
-    private final Map<Piece, Position> pieceToPositionMap;
+    /**
+     * The squares, relative to a target, that each player's pawns attack the target from,
+     * indexed by player ordinal
+     */
+    private static final Direction[][] PAWN_ATTACK_SOURCES = {
+            {Direction.SouthEast, Direction.SouthWest},
+            {Direction.NorthEast, Direction.NorthWest}
+    };
+
+    /**
+     * A mask with every square set
+     */
+    private static final long ALL_SQUARES = -1L;
+
+    /**
+     * What a King is worth in an exchange: more than everything else put together, so that an
+     * exchange never ends with a King capturing onto a defended square
+     */
+    private static final int KING_EXCHANGE_VALUE = 20000;
+
+    /**
+     * The number of undo records to make room for up front
+     */
+    private static final int INITIAL_HISTORY_CAPACITY = 64;
+
+    /**
+     * Where the pieces are
+     */
+    private final Board board;
+
+    /**
+     * The position of each player's King, indexed by player ordinal.  Null if the player has
+     * no King on the board.
+     */
+    private final Position[] kingPositions = new Position[Player.values().length];
+
+    /**
+     * The pieces each player has on the board, by type
+     */
+    private final PieceList pieceList = new PieceList();
+
+    /**
+     * The Zobrist key of the current position, kept up to date as pieces move and turns change
+     */
+    private long zobristKey;
+
+    /**
+     * The sum of the PieceSquareTables entries for each player's pieces, for the middlegame and the
+     * endgame, indexed by player ordinal.  Kept up to date as pieces move, like the Zobrist key.
+     */
+    private final int[] middlegameScores = new int[Player.values().length];
+    private final int[] endgameScores = new int[Player.values().length];
 
     /**
-     * The most recently executed move
+     * Remembers move lists and check/game-over answers for positions already seen.  Null if
+     * results are not cached.
      */
-    private Move lastMove;
+    private PositionCache positionCache = null;
 
     /**
-     * Create the game state.
+     * Game record details that do not affect which moves are legal here (this engine does not
+     * castle or capture en passant) but are carried through make/unmake and FEN.  The en passant
+     * square is a square index, or -1 if the last move was not a double pawn step.
+     */
+    private int castlingRights = 0;
+    private int enPassantSquare = -1;
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
+
+    /**
+     * Undo records for the moves made so far, most recent last: the move's squares (packed by
+     * Moves), the piece it captured, the Zobrist key before it was made, and the castling rights,
+     * en passant square and halfmove clock before it was made (packed by packStateFlags).  Kept as
+     * parallel arrays so that making a move allocates nothing once they have grown deep enough.
+     */
+    private int[] undoMoves = new int[INITIAL_HISTORY_CAPACITY];
+    private Piece[] undoCaptured = new Piece[INITIAL_HISTORY_CAPACITY];
+    private long[] undoKeys = new long[INITIAL_HISTORY_CAPACITY];
+    private int[] undoFlags = new int[INITIAL_HISTORY_CAPACITY];
+    private int historySize = 0;
+
+    /**
+     * Scratch space for seeScore: the squares of each piece type by player ordinal and type
+     * ordinal, and the running material balance after each capture of an exchange
+     */
+    private final long[][] exchangePieces = new long[Player.values().length][PieceType.COUNT];
+    private final int[] exchangeGains = new int[NUM_SQUARES + 1];
+
+    /**
+     * Create the game state, storing pieces in a HashMapBoard.
      */
     public GameState() {
-        positionToPieceMap = new HashMap<Position, Piece>();
-        pieceToPositionMap = new HashMap<Piece, Position>();
+        this(new HashMapBoard());
+    }
+
+    /**
+     * Create the game state on top of a specific board implementation.
+     * @param board An empty board that will hold this game's pieces.  It must not be shared
+     * with any other game state.
+     */
+    public GameState(Board board) {
+        this.board = board;
+    }
+
+    /**
+     * Create a copy of another game state
+     * @param original The game to copy
+     */
+    private GameState(GameState original) {
+        this.board = original.board.copyFor(this);
+        this.currentPlayer = original.currentPlayer;
+        this.zobristKey = original.zobristKey;
+        System.arraycopy(original.middlegameScores, 0, middlegameScores, 0, middlegameScores.length);
+        System.arraycopy(original.endgameScores, 0, endgameScores, 0, endgameScores.length);
+        this.castlingRights = original.castlingRights;
+        this.enPassantSquare = original.enPassantSquare;
+        this.halfmoveClock = original.halfmoveClock;
+        this.fullmoveNumber = original.fullmoveNumber;
+        System.arraycopy(original.kingPositions, 0, kingPositions, 0, kingPositions.length);
+
+        long remaining = board.getOccupancy();
+        while (remaining != 0) {
+            int square = Long.numberOfTrailingZeros(remaining);
+            pieceList.add(board.getPieceAt(Position.of(square)), square);
+            remaining &= remaining - 1;
+        }
+    }
+
+    /**
+     * Create an independent copy of this game.  The board, King locations and Zobrist key are copied
+     * directly, and the pieces are cloned and bound to the copy, so nothing is recomputed.  The copy
+     * does not share this game's position cache, and starts with no moves to take back.
+     * @return The copy
+     */
+    public GameState copy() {
+        return new GameState(this);
+    }
+
+    /**
+     * Cache legal moves and check/game-over answers in the given table, so that asking about the
+     * same position again is a lookup.  The cache may be shared with other game states used by
+     * the same thread.  While any piece of a non-standard type is on the board the cache is
+     * bypassed, since such pieces do not contribute to the Zobrist key.
+     * @param positionCache The cache to use, or null to stop caching
+     */
+    public void setPositionCache(PositionCache positionCache) {
+        this.positionCache = positionCache;
+    }
+
+    /**
+     * Get the cache used by this game state
+     * @return The cache, or null if results are not being cached
+     */
+    public PositionCache getPositionCache() {
+        return positionCache;
+    }
+
+    /**
+     * Get the cache to consult for the current position.  Positions holding pieces of no standard
+     * type share their Zobrist key with positions where those pieces stand elsewhere, so they are
+     * never read from or written to the cache.
+     * @return The cache, or null if the current position must not be cached
+     */
+    private PositionCache findPositionCache() {
+        if (pieceList.size(Player.White, null) > 0 || pieceList.size(Player.Black, null) > 0) {
+            return null;
+        }
+        return positionCache;
+    }
+
+    /**
+     * Get the board backing this game state
+     * @return The board
+     */
+    public Board getBoard() {
+        return board;
     }
 
     /**
@@ -38,40 +217,45 @@ public class GameState {
      */
     public void reset() {
         // White Pieces
-        placePiece(new Rook(Player.White), new Position("a1"));
-        placePiece(new Knight(Player.White), new Position("b1"));
-        placePiece(new Bishop(Player.White), new Position("c1"));
-        placePiece(new Queen(Player.White), new Position("d1"));
-        placePiece(new King(Player.White), new Position("e1"));
-        placePiece(new Bishop(Player.White), new Position("f1"));
-        placePiece(new Knight(Player.White), new Position("g1"));
-        placePiece(new Rook(Player.White), new Position("h1"));
-        placePiece(new Pawn(Player.White), new Position("a2"));
-        placePiece(new Pawn(Player.White), new Position("b2"));
-        placePiece(new Pawn(Player.White), new Position("c2"));
-        placePiece(new Pawn(Player.White), new Position("d2"));
-        placePiece(new Pawn(Player.White), new Position("e2"));
-        placePiece(new Pawn(Player.White), new Position("f2"));
-        placePiece(new Pawn(Player.White), new Position("g2"));
-        placePiece(new Pawn(Player.White), new Position("h2"));
+        placePiece(new Rook(Player.White), Position.valueOf("a1"));
+        placePiece(new Knight(Player.White), Position.valueOf("b1"));
+        placePiece(new Bishop(Player.White), Position.valueOf("c1"));
+        placePiece(new Queen(Player.White), Position.valueOf("d1"));
+        placePiece(new King(Player.White), Position.valueOf("e1"));
+        placePiece(new Bishop(Player.White), Position.valueOf("f1"));
+        placePiece(new Knight(Player.White), Position.valueOf("g1"));
+        placePiece(new Rook(Player.White), Position.valueOf("h1"));
+        placePiece(new Pawn(Player.White), Position.valueOf("a2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("b2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("c2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("d2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("e2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("f2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("g2"));
+        placePiece(new Pawn(Player.White), Position.valueOf("h2"));
 
         // Black Pieces
-        placePiece(new Rook(Player.Black), new Position("a8"));
-        placePiece(new Knight(Player.Black), new Position("b8"));
-        placePiece(new Bishop(Player.Black), new Position("c8"));
-        placePiece(new Queen(Player.Black), new Position("d8"));
-        placePiece(new King(Player.Black), new Position("e8"));
-        placePiece(new Bishop(Player.Black), new Position("f8"));
-        placePiece(new Knight(Player.Black), new Position("g8"));
-        placePiece(new Rook(Player.Black), new Position("h8"));
-        placePiece(new Pawn(Player.Black), new Position("a7"));
-        placePiece(new Pawn(Player.Black), new Position("b7"));
-        placePiece(new Pawn(Player.Black), new Position("c7"));
-        placePiece(new Pawn(Player.Black), new Position("d7"));
-        placePiece(new Pawn(Player.Black), new Position("e7"));
-        placePiece(new Pawn(Player.Black), new Position("f7"));
-        placePiece(new Pawn(Player.Black), new Position("g7"));
-        placePiece(new Pawn(Player.Black), new Position("h7"));
+        placePiece(new Rook(Player.Black), Position.valueOf("a8"));
+        placePiece(new Knight(Player.Black), Position.valueOf("b8"));
+        placePiece(new Bishop(Player.Black), Position.valueOf("c8"));
+        placePiece(new Queen(Player.Black), Position.valueOf("d8"));
+        placePiece(new King(Player.Black), Position.valueOf("e8"));
+        placePiece(new Bishop(Player.Black), Position.valueOf("f8"));
+        placePiece(new Knight(Player.Black), Position.valueOf("g8"));
+        placePiece(new Rook(Player.Black), Position.valueOf("h8"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("a7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("b7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("c7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("d7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("e7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("f7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("g7"));
+        placePiece(new Pawn(Player.Black), Position.valueOf("h7"));
+
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
     }
 
     public Player getCurrentPlayer() {
@@ -80,6 +264,113 @@ public class GameState {
 
     public void toggleCurrentPlayer() {
         this.currentPlayer = currentPlayer.other();
+        zobristKey ^= Zobrist.SIDE_TO_MOVE;
+    }
+
+    /**
+     * Set whose turn it is, for setting up a position
+     * @param player The player to move
+     */
+    public void setCurrentPlayer(Player player) {
+        if (player != currentPlayer) {
+            toggleCurrentPlayer();
+        }
+    }
+
+    /**
+     * Get the castling rights still held.  They are tracked as Kings and Rooks move but castling
+     * moves are not generated.
+     * @return A combination of WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and BLACK_QUEENSIDE
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Set the castling rights, for setting up a position
+     * @param castlingRights A combination of the castling right bits
+     */
+    public void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights & ALL_CASTLING;
+    }
+
+    /**
+     * Get the square a pawn skipped over on the last move.  It is tracked but en passant captures
+     * are not generated.
+     * @return The square, or null if the last move was not a pawn's double step
+     */
+    public Position getEnPassantSquare() {
+        return enPassantSquare < 0 ? null : Position.of(enPassantSquare);
+    }
+
+    /**
+     * Set the en passant square, for setting up a position
+     * @param position The square, or null for none
+     */
+    public void setEnPassantSquare(Position position) {
+        this.enPassantSquare = position == null ? -1 : position.getIndex();
+    }
+
+    /**
+     * Get the number of moves since the last capture or pawn move
+     * @return The halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Set the halfmove clock, for setting up a position
+     * @param halfmoveClock The number of moves since the last capture or pawn move
+     */
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Get the number of the current full move, which starts at 1 and goes up after each of
+     * Black's moves
+     * @return The fullmove number
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Set the fullmove number, for setting up a position
+     * @param fullmoveNumber The fullmove number
+     */
+    public void setFullmoveNumber(int fullmoveNumber) {
+        this.fullmoveNumber = fullmoveNumber;
+    }
+
+    /**
+     * Get the Zobrist key of the current position.  It covers where every piece is and which
+     * player is to move, and is maintained incrementally, so this is cheap to call.
+     * @return The 64-bit key
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * Get a player's middlegame piece-square score.  It is kept up to date as pieces move, so this
+     * is cheap to call.
+     * @param player The player
+     * @return The sum of the PieceSquareTables middlegame entries for the player's pieces
+     */
+    public int getMiddlegameScore(Player player) {
+        return middlegameScores[player.ordinal()];
+    }
+
+    /**
+     * Get a player's endgame piece-square score.  It is kept up to date as pieces move, so this is
+     * cheap to call.
+     * @param player The player
+     * @return The sum of the PieceSquareTables endgame entries for the player's pieces
+     */
+    public int getEndgameScore(Player player) {
+        return endgameScores[player.ordinal()];
     }
 
     /**
@@ -89,7 +380,7 @@ public class GameState {
      * @return The piece that was replaced, if any
      */
     public Piece placePiece(Piece piece, String colrow) {
-        Position position = new Position(colrow);
+        Position position = Position.valueOf(colrow);
         return placePiece(piece, position);
     }
 
@@ -101,62 +392,396 @@ public class GameState {
      */
     public Piece placePiece(Piece piece, Position position) {
         piece.setGameState(this);
+        return movePiece(piece, position);
+    }
 
-        Position originalPosition = getPositionOf(piece);
-        if (originalPosition != null) {
-            positionToPieceMap.remove(originalPosition);
-        }
+    /**
+     * Move a piece that already belongs to this game, keeping the King locations, the piece lists,
+     * the Zobrist key and the piece-square scores up to date
+     * @param piece The piece
+     * @param position The position to move it to
+     * @return The piece that was replaced, if any
+     */
+    private Piece movePiece(Piece piece, Position position) {
+        Position originalPosition = board.getPositionOf(piece);
+        Piece replaced = board.placePiece(piece, position);
 
-        Piece replaced = positionToPieceMap.put(position, piece);
+        zobristKey ^= Zobrist.pieceKey(piece, originalPosition)
+                ^ Zobrist.pieceKey(replaced, position)
+                ^ Zobrist.pieceKey(piece, position);
+
+        int player = piece.getPlayer().ordinal();
+        middlegameScores[player] += PieceSquareTables.middlegame(piece, position)
+                - PieceSquareTables.middlegame(piece, originalPosition);
+        endgameScores[player] += PieceSquareTables.endgame(piece, position)
+                - PieceSquareTables.endgame(piece, originalPosition);
         if (replaced != null) {
-            pieceToPositionMap.put(replaced, Position.OFF_BOARD);
+            int opponent = replaced.getPlayer().ordinal();
+            middlegameScores[opponent] -= PieceSquareTables.middlegame(replaced, position);
+            endgameScores[opponent] -= PieceSquareTables.endgame(replaced, position);
         }
 
-        pieceToPositionMap.put(piece, position);
+        int from = originalPosition == null ? -1 : originalPosition.getIndex();
+        int to = position.getIndex();
+        if (replaced != null && to >= 0) {
+            pieceList.remove(replaced, to);
+        }
+        if (from >= 0 && to >= 0) {
+            pieceList.move(piece, from, to);
+        } else if (from >= 0) {
+            pieceList.remove(piece, from);
+        } else if (to >= 0) {
+            pieceList.add(piece, to);
+        }
+
+        if (replaced != null && replaced.getType() == PieceType.King
+                && position.equals(kingPositions[replaced.getPlayer().ordinal()])) {
+            kingPositions[replaced.getPlayer().ordinal()] = null;
+        }
+
+        if (piece.getType() == PieceType.King) {
+            kingPositions[piece.getPlayer().ordinal()] = position.getIndex() < 0 ? null : position;
+        }
 
         return replaced;
     }
 
     public Piece getPieceAt(String colrow) {
-        Position position = new Position(colrow);
+        Position position = Position.valueOf(colrow);
         return getPieceAt(position);
     }
 
     public Piece getPieceAt(Position position) {
-        return positionToPieceMap.get(position);
+        return board.getPieceAt(position);
     }
 
     private Position getPositionOf(Piece piece) {
-        if (piece == null) {
-            return null;
-        }
+        return board.getPositionOf(piece);
+    }
 
-        return pieceToPositionMap.get(piece);
+    /**
+     * Get the pieces on the board grouped by player and type.  The lists are kept up to date as
+     * the game changes, and can be read without allocating.
+     * @return The live piece lists
+     */
+    public PieceList getPieceList() {
+        return pieceList;
     }
 
     public Set<Piece> getPiecesOnBoard(Player player) {
-        HashSet<Piece> pieces = new HashSet<Piece>(positionToPieceMap.values());
-        Set<Piece> playerPieces = filterPieces(pieces, player);
-        return Collections.unmodifiableSet(playerPieces);
+        return Collections.unmodifiableSet(board.getPieces(player));
     }
 
     /**
-     * Determine if the given space is "covered" by a given player's piece.
-     * @param position  The destination in question.
-     * @param player The player whose pieces to check
-     * @return True if the other player has the given position covered.
+     * Determine if the given square is attacked by any of a player's pieces.  Rather than generating
+     * every move the attacker has, this looks outward from the square for a piece that could reach it:
+     * pawns on the diagonals behind it, knights a jump away, a King alongside, and sliding pieces
+     * at the end of each ray.  Only the standard piece types are considered.
+     * @param position The square in question
+     * @param attacker The player whose pieces to check
+     * @return True if one of the attacker's pieces could move to (or capture on) the square
      */
-    private boolean isCoveredBy(Position position, Player player) {
-        Set<Piece> otherPieces = getPiecesOnBoard(player);
-        for (Piece piece : otherPieces) {
-            Position pieceOrigin = getPositionOf(piece);
-            Set<Position> possible = piece.getNextPositions(pieceOrigin);
-            if (possible.contains(position)) {
-                return true;
+    public boolean isAttackedBy(Position position, Player attacker) {
+        return findAttackers(position, attacker, null, true) != 0;
+    }
+
+    /**
+     * Find the pieces of a player that attack a square, looking outward from the square as
+     * described for isAttackedBy.
+     * @param position The square in question
+     * @param attacker The player whose pieces to look for
+     * @param ignore A square to treat as empty even if a piece is on it, or null.  Used to see
+     * through a King to the squares behind it when working out where it can go.
+     * @param firstOnly True to stop as soon as one attacker is found
+     * @return A mask with the bit of each attacking piece's square set
+     */
+    private long findAttackers(Position position, Player attacker, Position ignore, boolean firstOnly) {
+        long attackers = 0;
+
+        // Pawns attack diagonally forward, so look diagonally backward from the target
+        for (Direction direction : PAWN_ATTACK_SOURCES[attacker.ordinal()]) {
+            Position source = position.step(direction);
+            if (isPieceAt(source, attacker, PieceType.Pawn)) {
+                attackers |= squareMask(source);
+                if (firstOnly) {
+                    return attackers;
+                }
+            }
+        }
+
+        // Knight jumps are symmetric, so the squares a knight could attack from are its own targets
+        for (Position source : AttackTables.knightTargets(position)) {
+            if (isPieceAt(source, attacker, PieceType.Knight)) {
+                attackers |= squareMask(source);
+                if (firstOnly) {
+                    return attackers;
+                }
+            }
+        }
+
+        for (Position source : AttackTables.kingTargets(position)) {
+            if (isPieceAt(source, attacker, PieceType.King)) {
+                attackers |= squareMask(source);
+                if (firstOnly) {
+                    return attackers;
+                }
+            }
+        }
+
+        // The first piece along each line is found in one lookup; see if it slides along that line
+        int index = position.getIndex();
+        long occupied = board.getOccupancy() & ~(ignore == null ? 0 : squareMask(ignore));
+        long attackerOccupancy = board.getOccupancy(attacker);
+
+        attackers |= findSliders(Magics.rookAttacks(index, occupied) & attackerOccupancy, PieceType.Rook);
+        if (firstOnly && attackers != 0) {
+            return attackers;
+        }
+
+        attackers |= findSliders(Magics.bishopAttacks(index, occupied) & attackerOccupancy, PieceType.Bishop);
+
+        return attackers;
+    }
+
+    /**
+     * Narrow a set of squares down to the ones holding sliding pieces of a given kind
+     * @param candidates A mask of the squares to examine
+     * @param type Rook or Bishop; Queens always match
+     * @return A mask of the squares holding a matching piece
+     */
+    private long findSliders(long candidates, PieceType type) {
+        long sliders = 0;
+        while (candidates != 0) {
+            int index = Long.numberOfTrailingZeros(candidates);
+            PieceType found = board.getPieceAt(Position.of(index)).getType();
+            if (found == type || found == PieceType.Queen) {
+                sliders |= 1L << index;
             }
+            candidates &= candidates - 1;
         }
+        return sliders;
+    }
 
-        return false;
+    /**
+     * Work out the material outcome of a move by static exchange evaluation: the move's piece
+     * captures on its destination, then the two players take turns recapturing there with their
+     * least valuable attacker, each stopping whenever carrying on would lose material.  Attackers
+     * are found with the attack tables, including sliding pieces uncovered behind pieces that have
+     * already captured; no moves are made.  Pins and checks are ignored, as are pieces of no
+     * standard type.
+     * @param move The move, which need not be a capture
+     * @return The material the moving player can expect to gain, in centipawns.  Negative if the
+     * piece moved will be lost for less.
+     * @throws IllegalArgumentException If there is no piece on the move's origin
+     */
+    public int seeScore(Move move) {
+        return staticExchange(move.getOrigin().getIndex(), move.getDestination().getIndex());
+    }
+
+    /**
+     * Work out the material outcome of a packed move by static exchange evaluation
+     * @param move The move, packed by Moves
+     * @return The material the moving player can expect to gain, in centipawns
+     * @throws IllegalArgumentException If there is no piece on the move's origin
+     * @see #seeScore(Move)
+     */
+    public int seeScore(int move) {
+        return staticExchange(Moves.origin(move), Moves.destination(move));
+    }
+
+    private int staticExchange(int origin, int destination) {
+        Piece moving = board.getPieceAt(Position.of(origin));
+        if (moving == null) {
+            throw new IllegalArgumentException("No piece to move on " + Position.of(origin));
+        }
+
+        for (Player player : Player.values()) {
+            long[] pieces = exchangePieces[player.ordinal()];
+            for (int kind = 0; kind < PieceType.COUNT; kind++) {
+                PieceType type = PieceType.forOrdinal(kind);
+                long squares = 0;
+                for (int i = 0; i < pieceList.size(player, type); i++) {
+                    squares |= 1L << pieceList.getSquare(player, type, i);
+                }
+                pieces[kind] = squares;
+            }
+        }
+
+        long diagonalSliders = 0;
+        long straightSliders = 0;
+        for (long[] pieces : exchangePieces) {
+            diagonalSliders |= pieces[PieceType.Bishop.ordinal()] | pieces[PieceType.Queen.ordinal()];
+            straightSliders |= pieces[PieceType.Rook.ordinal()] | pieces[PieceType.Queen.ordinal()];
+        }
+
+        long occupied = board.getOccupancy();
+        long attackers = findExchangeAttackers(destination, occupied, diagonalSliders, straightSliders);
+        Player side = moving.getPlayer();
+        long from = 1L << origin;
+        int attackerValue = exchangeValue(moving.getType());
+
+        int[] gains = exchangeGains;
+        int depth = 0;
+        gains[0] = exchangeValue(board.getPieceAt(Position.of(destination)));
+        while (true) {
+            // What this side is up if the piece that just captured is taken in turn
+            depth++;
+            gains[depth] = attackerValue - gains[depth - 1];
+
+            occupied &= ~from;
+            attackers &= occupied;
+            attackers |= (Magics.bishopAttacks(destination, occupied) & diagonalSliders
+                    | Magics.rookAttacks(destination, occupied) & straightSliders) & occupied;
+
+            side = side.other();
+            long[] pieces = exchangePieces[side.ordinal()];
+            from = 0;
+            for (int kind = 0; kind < PieceType.COUNT && from == 0; kind++) {
+                long candidates = pieces[kind] & attackers;
+                if (candidates != 0) {
+                    from = candidates & -candidates;
+                    attackerValue = exchangeValue(PieceType.forOrdinal(kind));
+                }
+            }
+            if (from == 0) {
+                break;
+            }
+        }
+
+        // The last entry supposed a recapture nobody can make.  Working back, each side may stop
+        // the exchange rather than make a losing capture.
+        while (--depth > 0) {
+            gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+        }
+        return gains[0];
+    }
+
+    /**
+     * Find every piece of either player that attacks a square, given which squares are occupied
+     */
+    private long findExchangeAttackers(int square, long occupied, long diagonalSliders, long straightSliders) {
+        long attackers = Magics.bishopAttacks(square, occupied) & diagonalSliders
+                | Magics.rookAttacks(square, occupied) & straightSliders;
+        for (Player player : Player.values()) {
+            long[] pieces = exchangePieces[player.ordinal()];
+            // A pawn attacks a square if a pawn of the other player on that square would attack it
+            attackers |= AttackTables.pawnAttacks(player.other(), square) & pieces[PieceType.Pawn.ordinal()];
+            attackers |= AttackTables.knightAttacks(square) & pieces[PieceType.Knight.ordinal()];
+            attackers |= AttackTables.kingAttacks(square) & pieces[PieceType.King.ordinal()];
+        }
+        return attackers;
+    }
+
+    private static int exchangeValue(Piece piece) {
+        return piece == null ? 0 : exchangeValue(piece.getType());
+    }
+
+    private static int exchangeValue(PieceType type) {
+        if (type == null) {
+            return 0;
+        }
+        return type == PieceType.King ? KING_EXCHANGE_VALUE : PieceSquareTables.pieceValue(type);
+    }
+
+    /**
+     * Find the first occupied square along a ray
+     * @param origin The square to start from (not itself examined)
+     * @param direction The direction of the ray
+     * @return The first occupied square, or null if the ray reaches the edge of the board
+     */
+    private Position findFirstPiece(Position origin, Direction direction) {
+        for (Position current : AttackTables.ray(origin, direction)) {
+            if (getPieceAt(current) != null) {
+                return current;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Determine if a piece type slides along a given direction
+     * @param type The piece type; may be null
+     * @param direction The direction
+     * @return True for Queens, and for Rooks along rows and columns or Bishops along diagonals
+     */
+    private static boolean slidesAlong(PieceType type, Direction direction) {
+        if (type == PieceType.Queen) {
+            return true;
+        }
+
+        return type == (isDiagonal(direction) ? PieceType.Bishop : PieceType.Rook);
+    }
+
+    private static boolean isDiagonal(Direction direction) {
+        return direction == Direction.NorthEast || direction == Direction.SouthEast
+                || direction == Direction.SouthWest || direction == Direction.NorthWest;
+    }
+
+    /**
+     * Find the direction to step in to get from one square to another in a straight line
+     * @param from The starting square
+     * @param to The target square
+     * @return The direction, or null if the squares are the same or do not share a row,
+     * column or diagonal
+     */
+    private static Direction directionBetween(Position from, Position to) {
+        int columns = to.getColumn() - from.getColumn();
+        int rows = to.getRow() - from.getRow();
+
+        if (columns == 0 && rows == 0) {
+            return null;
+        } else if (columns == 0) {
+            return rows > 0 ? Direction.North : Direction.South;
+        } else if (rows == 0) {
+            return columns > 0 ? Direction.East : Direction.West;
+        } else if (Math.abs(columns) == Math.abs(rows)) {
+            if (columns > 0) {
+                return rows > 0 ? Direction.NorthEast : Direction.SouthEast;
+            } else {
+                return rows > 0 ? Direction.NorthWest : Direction.SouthWest;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Build a mask of the squares along a ray, up to and including a target square
+     * @param from The square to start from (not included)
+     * @param direction The direction of the ray
+     * @param to The last square to include; must lie on the ray
+     * @return The mask
+     */
+    private static long rayMask(Position from, Direction direction, Position to) {
+        long mask = 0;
+        Position current = from;
+        do {
+            current = current.step(direction);
+            mask |= squareMask(current);
+        } while (current.getIndex() != to.getIndex());
+
+        return mask;
+    }
+
+    private static long squareMask(Position position) {
+        return 1L << position.getIndex();
+    }
+
+    /**
+     * Determine if a square holds a given player's piece of a given type
+     * @param position The square, which may be null if it is off the board
+     * @param player The owner to look for
+     * @param type The piece type to look for
+     * @return True if the piece on the square matches
+     */
+    private boolean isPieceAt(Position position, Player player, PieceType type) {
+        if (position == null) {
+            return false;
+        }
+
+        Piece piece = getPieceAt(position);
+        return piece != null && piece.getPlayer() == player && piece.getType() == type;
     }
 
     /**
@@ -165,38 +790,380 @@ public class GameState {
      * possible moves, it still has an entry in the map, but that value is an empty Set.
      */
     public Map<Piece, Set<Move>> findPossibleMoves() {
+        PositionCache cache = findPositionCache();
+        if (cache != null) {
+            int[] cached = cache.getMoves(zobristKey);
+            if (cached != null) {
+                return buildMoveMap(cached);
+            }
+        }
+
         Map<Piece, Set<Move>> moveMap = new HashMap<Piece, Set<Move>>();
 
         // For each piece the player has on the board, add all of the possible
         // moves it could have.
-        Set<Piece> pieces = getPiecesOnBoard(currentPlayer);
-        for (Piece piece : pieces) {
-            moveMap.put(piece, findValidMovesFor(piece));
+        long evasions = findCheckEvasions();
+        int numMoves = 0;
+        for (int kind = 0; kind <= PieceType.COUNT; kind++) {
+            PieceType type = kind < PieceType.COUNT ? PieceType.forOrdinal(kind) : null;
+            for (int i = 0; i < pieceList.size(currentPlayer, type); i++) {
+                Piece piece = pieceList.get(currentPlayer, type, i);
+                Set<Move> moves = findValidMovesFor(piece, evasions);
+                moveMap.put(piece, moves);
+                numMoves += moves.size();
+            }
+        }
+
+        if (cache != null) {
+            int[] packed = new int[numMoves];
+            int i = 0;
+            for (Set<Move> moves : moveMap.values()) {
+                for (Move move : moves) {
+                    packed[i++] = encodeMove(move);
+                }
+            }
+            cache.putMoves(zobristKey, packed);
         }
 
         return moveMap;
     }
 
+    /**
+     * Rebuild the result of findPossibleMoves from cached moves
+     * @param packedMoves The legal moves of the current position, packed by Moves
+     * @return A map of moves from Piece --> Set of Moves
+     */
+    private Map<Piece, Set<Move>> buildMoveMap(int[] packedMoves) {
+        Map<Piece, Set<Move>> moveMap = new HashMap<Piece, Set<Move>>();
+        for (int kind = 0; kind <= PieceType.COUNT; kind++) {
+            PieceType type = kind < PieceType.COUNT ? PieceType.forOrdinal(kind) : null;
+            for (int i = 0; i < pieceList.size(currentPlayer, type); i++) {
+                moveMap.put(pieceList.get(currentPlayer, type, i), new HashSet<Move>());
+            }
+        }
+
+        for (int packed : packedMoves) {
+            Move move = Moves.toMove(packed);
+            moveMap.get(getPieceAt(move.getOrigin())).add(move);
+        }
+
+        for (Map.Entry<Piece, Set<Move>> entry : moveMap.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+
+        return moveMap;
+    }
+
+    /**
+     * Generate the legal moves of the current player as packed ints, without creating a Move or
+     * a set for each one.  Pieces of the standard types are moved with the precomputed attack
+     * tables; any other pieces fall back to their own position generators.  The moves are the
+     * same as those findPossibleMoves returns, in no particular order.
+     * @param moves The list to fill.  It is cleared first.
+     * @return The number of moves generated
+     */
+    public int generateMoves(MoveList moves) {
+        moves.clear();
+
+        PositionCache cache = findPositionCache();
+        if (cache != null) {
+            int[] cached = cache.getMoves(zobristKey);
+            if (cached != null) {
+                for (int move : cached) {
+                    moves.add(move);
+                }
+                return moves.size();
+            }
+        }
+
+        generate(moves, false);
+
+        if (cache != null) {
+            cache.putMoves(zobristKey, moves.toArray());
+        }
+
+        return moves.size();
+    }
+
+    /**
+     * Generate only the legal captures of the current player, as packed ints.  Pawns are not
+     * pushed and sliding pieces do not stop on empty squares, so this does much less work than
+     * generating every move and filtering.  The results are not cached.
+     * @param moves The list to fill.  It is cleared first.
+     * @return The number of captures generated
+     */
+    public int generateCaptures(MoveList moves) {
+        moves.clear();
+        generate(moves, true);
+        return moves.size();
+    }
+
+    /**
+     * Add the legal moves of the current player to a list
+     * @param moves The list to add to, or null to stop at the first legal move instead
+     * @param capturesOnly True to leave out moves to empty squares
+     * @return True if there was at least one move to add
+     */
+    private boolean generate(MoveList moves, boolean capturesOnly) {
+        boolean found = false;
+        Player opponent = currentPlayer.other();
+        Position kingPosition = kingPositions[currentPlayer.ordinal()];
+        long evasions = findCheckEvasions();
+        long own = board.getOccupancy(currentPlayer);
+        long opponents = board.getOccupancy(opponent);
+        long occupied = own | opponents;
+        long destinations = capturesOnly ? opponents : ~own;
+
+        for (int kind = 0; kind < PieceType.COUNT; kind++) {
+            PieceType type = PieceType.forOrdinal(kind);
+            for (int i = 0; i < pieceList.size(currentPlayer, type); i++) {
+                int origin = pieceList.getSquare(currentPlayer, type, i);
+                Position start = Position.of(origin);
+
+                long targets;
+                if (capturesOnly && type == PieceType.Pawn) {
+                    targets = AttackTables.pawnAttacks(currentPlayer, origin) & opponents;
+                } else {
+                    targets = findTargets(type, origin, occupied, opponents) & destinations;
+                }
+                if (type != PieceType.King) {
+                    targets &= evasions;
+                    if (kingPosition != null) {
+                        targets &= findPinRay(start, kingPosition);
+                    }
+                }
+
+                while (targets != 0) {
+                    int destination = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+
+                    // Look through the King's current square so it cannot retreat along a checking ray
+                    if (type == PieceType.King && kingPosition != null
+                            && findAttackers(Position.of(destination), opponent, start, true) != 0) {
+                        continue;
+                    }
+
+                    if (moves == null) {
+                        return true;
+                    }
+                    moves.add(encodeCapture(origin, destination, opponents));
+                    found = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < pieceList.size(currentPlayer, null); i++) {
+            for (Move move : findValidMovesFor(pieceList.get(currentPlayer, null, i), evasions)) {
+                if ((destinations & 1L << move.getDestination().getIndex()) != 0) {
+                    if (moves == null) {
+                        return true;
+                    }
+                    moves.add(encodeMove(move));
+                    found = true;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Work out the squares a piece of a standard type could move to, ignoring check
+     * @param type The piece type
+     * @param origin The index of the piece's square
+     * @param occupied Every occupied square
+     * @param opponents The squares occupied by the other player
+     * @return The reachable squares.  These may include squares of the current player's own pieces.
+     */
+    private long findTargets(PieceType type, int origin, long occupied, long opponents) {
+        switch (type) {
+            case Pawn:
+                return findPawnTargets(origin, occupied, opponents);
+            case Knight:
+                return AttackTables.knightAttacks(origin);
+            case Bishop:
+                return Magics.bishopAttacks(origin, occupied);
+            case Rook:
+                return Magics.rookAttacks(origin, occupied);
+            case Queen:
+                return Magics.queenAttacks(origin, occupied);
+            case King:
+                return AttackTables.kingAttacks(origin);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Work out where a pawn of the current player can go: one square forward, two from its
+     * starting row, or diagonally forward onto an opposing piece
+     */
+    private long findPawnTargets(int origin, long occupied, long opponents) {
+        long pawn = 1L << origin;
+        long targets;
+        if (currentPlayer == Player.White) {
+            long oneStep = (pawn << NUM_COLUMNS) & ~occupied;
+            targets = oneStep;
+            if (origin / NUM_COLUMNS == 1) {
+                targets |= (oneStep << NUM_COLUMNS) & ~occupied;
+            }
+        } else {
+            long oneStep = (pawn >>> NUM_COLUMNS) & ~occupied;
+            targets = oneStep;
+            if (origin / NUM_COLUMNS == 6) {
+                targets |= (oneStep >>> NUM_COLUMNS) & ~occupied;
+            }
+        }
+
+        return targets | (AttackTables.pawnAttacks(currentPlayer, origin) & opponents);
+    }
+
+    /**
+     * Pack a move, recording what it captures
+     * @param move The move
+     * @return The move packed by Moves
+     */
+    private int encodeMove(Move move) {
+        return encodeCapture(move.getOrigin().getIndex(), move.getDestination().getIndex(), ALL_SQUARES);
+    }
+
+    /**
+     * Pack a move, recording what it captures
+     * @param origin The index of the square the piece moves from
+     * @param destination The index of the square it moves to
+     * @param opponents Squares that may hold a piece to capture
+     * @return The move packed by Moves
+     */
+    private int encodeCapture(int origin, int destination, long opponents) {
+        if ((opponents & 1L << destination) == 0) {
+            return Moves.encode(origin, destination, null);
+        }
+
+        Piece captured = board.getPieceAt(Position.of(destination));
+        if (captured == null) {
+            return Moves.encode(origin, destination, null);
+        } else if (captured.getType() == null) {
+            return Moves.encode(origin, destination, Moves.CAPTURE);
+        }
+        return Moves.encode(origin, destination, captured.getType());
+    }
+
     /**
      * Find all the valid moves that a given piece could make.
      * @param piece The piece whose moves to get
      * @return The set of possible moves.
      */
     public Set<Move> findValidMovesFor(Piece piece) {
+        return findValidMovesFor(piece, findCheckEvasions());
+    }
+
+    /**
+     * Find all the valid moves that a given piece could make.  Rather than making each move to
+     * see whether it leaves the King in check, the moves the piece's generators produce are
+     * filtered up front: the King may not step onto an attacked square, a pinned piece must stay
+     * on the line between its King and the pinning piece, and when in check every other piece
+     * must capture the checking piece or block it.  Pieces that are not of a standard type, or
+     * that do not belong to the current player, are checked by making each move.
+     * @param piece The piece whose moves to get
+     * @param evasions The squares, as returned by findCheckEvasions, that pieces other than the
+     * King may move to
+     * @return The set of possible moves.
+     */
+    private Set<Move> findValidMovesFor(Piece piece, long evasions) {
         Set<Move> moves = new HashSet<Move>();
         Position start = getPositionOf(piece);
+        Position kingPosition = kingPositions[currentPlayer.ordinal()];
 
         Set<Position> possible = piece.getNextPositions(start);
-        for (Position position : possible) {
-            Move move = new Move(start, position);
-            if (!wouldBeInCheckAfter(move)) {
-                moves.add(move);
+        if (kingPosition == null || piece.getType() == null || piece.getPlayer() != currentPlayer) {
+            for (Position position : possible) {
+                Move move = new Move(start, position);
+                if (!wouldBeInCheckAfter(move)) {
+                    moves.add(move);
+                }
+            }
+        } else if (piece.getType() == PieceType.King) {
+            // Look through the King's current square so it cannot retreat along a checking ray
+            for (Position position : possible) {
+                if (findAttackers(position, currentPlayer.other(), start, true) == 0) {
+                    moves.add(new Move(start, position));
+                }
+            }
+        } else {
+            long allowed = evasions & findPinRay(start, kingPosition);
+            for (Position position : possible) {
+                if ((allowed & squareMask(position)) != 0) {
+                    moves.add(new Move(start, position));
+                }
             }
         }
 
         return Collections.unmodifiableSet(moves);
     }
 
+    /**
+     * Work out which squares a piece other than the King may move to without leaving the current
+     * player in check
+     * @return Every square if the player is not in check; the checking piece's square and the
+     * squares between it and the King if there is one checking piece; no squares if there are two
+     */
+    private long findCheckEvasions() {
+        Position kingPosition = kingPositions[currentPlayer.ordinal()];
+        if (kingPosition == null) {
+            return ALL_SQUARES;
+        }
+
+        long checkers = findAttackers(kingPosition, currentPlayer.other(), null, false);
+        if (checkers == 0) {
+            return ALL_SQUARES;
+        } else if (Long.bitCount(checkers) > 1) {
+            // Double check: only the King can move
+            return 0;
+        }
+
+        Position checker = Position.of(Long.numberOfTrailingZeros(checkers));
+        Direction direction = directionBetween(kingPosition, checker);
+        if (direction == null) {
+            // A knight; it can only be captured
+            return checkers;
+        }
+
+        return rayMask(kingPosition, direction, checker);
+    }
+
+    /**
+     * Work out whether a piece is pinned to its King, and if so where it may move
+     * @param position The position of the piece
+     * @param kingPosition The position of its King
+     * @return Every square if the piece is not pinned; otherwise the squares between the piece's
+     * King and the pinning piece, including the pinning piece itself
+     */
+    private long findPinRay(Position position, Position kingPosition) {
+        Direction direction = directionBetween(kingPosition, position);
+        if (direction == null) {
+            return ALL_SQUARES;
+        }
+
+        // The piece must be the first one out from the King along the ray ...
+        Position first = findFirstPiece(kingPosition, direction);
+        if (first == null || first.getIndex() != position.getIndex()) {
+            return ALL_SQUARES;
+        }
+
+        // ... with an opposing piece that slides along the ray behind it
+        Position pinner = findFirstPiece(position, direction);
+        if (pinner == null) {
+            return ALL_SQUARES;
+        }
+
+        Piece pinningPiece = getPieceAt(pinner);
+        if (pinningPiece.getPlayer() == currentPlayer || !slidesAlong(pinningPiece.getType(), direction)) {
+            return ALL_SQUARES;
+        }
+
+        return rayMask(kingPosition, direction, pinner);
+    }
+
     /**
      * Make the move indicated by the move string (i.e. "e2 e4")
      * @param moveStr The move string
@@ -226,7 +1193,7 @@ public class GameState {
             return false;
         } else {
             // It's now the other player's move
-            currentPlayer = currentPlayer.other();
+            toggleCurrentPlayer();
             return true;
         }
     }
@@ -255,16 +1222,141 @@ public class GameState {
         }
 
         // Otherwise we are good to make the move
+        Piece replaced = pushMove(movingPiece, origin, destination);
+        move.record(movingPiece, replaced);
 
-        // Remove the piece from its original place
-//        positionToPieceMap.remove(origin);
+        return isCurrentKingAttacked();
+    }
 
-        // Place it in its new position, removing the old piece (if any)
-        Piece replaced = placePiece(movingPiece, destination);
-        move.record(movingPiece, replaced);
-        this.lastMove = move;
+    /**
+     * Make a move produced by generateMoves for the current position.  The move is trusted to be
+     * legal, so unlike makeMove(Move) nothing is generated to check it and nothing is allocated.
+     * @param move The move, packed by Moves
+     * @throws InvalidMoveException If there is no piece of the current player on the origin square
+     */
+    public void makeMove(int move) {
+        Position origin = Position.of(Moves.origin(move));
+        Piece movingPiece = getPieceAt(origin);
+        if (movingPiece == null || movingPiece.getPlayer() != currentPlayer) {
+            throw new InvalidMoveException(Moves.toMove(move));
+        }
 
-        return isInCheck();
+        pushMove(movingPiece, origin, Position.of(Moves.destination(move)));
+        toggleCurrentPlayer();
+    }
+
+    /**
+     * Move a piece and push an undo record for it.  This does NOT change the current player.
+     * @param movingPiece The piece to move
+     * @param origin Where it is
+     * @param destination Where it goes
+     * @return The piece captured, if any
+     */
+    private Piece pushMove(Piece movingPiece, Position origin, Position destination) {
+        if (historySize == undoMoves.length) {
+            int capacity = historySize * 2;
+            undoMoves = Arrays.copyOf(undoMoves, capacity);
+            undoCaptured = Arrays.copyOf(undoCaptured, capacity);
+            undoKeys = Arrays.copyOf(undoKeys, capacity);
+            undoFlags = Arrays.copyOf(undoFlags, capacity);
+        }
+
+        undoMoves[historySize] = Moves.encode(origin.getIndex(), destination.getIndex(), null);
+        undoKeys[historySize] = zobristKey;
+        undoFlags[historySize] = packStateFlags();
+        Piece replaced = movePiece(movingPiece, destination);
+        undoCaptured[historySize] = replaced;
+        historySize++;
+
+        updateStateFlags(movingPiece, origin.getIndex(), destination.getIndex(), replaced != null);
+
+        return replaced;
+    }
+
+    /**
+     * Bring the castling rights, en passant square and move clocks up to date after a move
+     * @param movingPiece The piece that moved
+     * @param origin The index of the square it left
+     * @param destination The index of the square it arrived on
+     * @param capture True if it captured a piece
+     */
+    private void updateStateFlags(Piece movingPiece, int origin, int destination, boolean capture) {
+        PieceType type = movingPiece.getType();
+
+        halfmoveClock = (capture || type == PieceType.Pawn) ? 0 : halfmoveClock + 1;
+        if (movingPiece.getPlayer() == Player.Black) {
+            fullmoveNumber++;
+        }
+
+        enPassantSquare = -1;
+        if (type == PieceType.Pawn && Math.abs(destination - origin) == 2 * NUM_COLUMNS) {
+            enPassantSquare = (origin + destination) / 2;
+        }
+
+        if (castlingRights != 0) {
+            if (type == PieceType.King) {
+                castlingRights &= movingPiece.getPlayer() == Player.White
+                        ? ~(WHITE_KINGSIDE | WHITE_QUEENSIDE) : ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+            }
+            castlingRights &= ~(castlingLostAt(origin) | castlingLostAt(destination));
+        }
+    }
+
+    /**
+     * Find the castling right lost when a piece leaves or arrives on a Rook's starting corner
+     * @param square The square index
+     * @return The right, or 0 if the square is not a corner
+     */
+    private static int castlingLostAt(int square) {
+        switch (square) {
+            case 0: return WHITE_QUEENSIDE;
+            case NUM_COLUMNS - 1: return WHITE_KINGSIDE;
+            case NUM_SQUARES - NUM_COLUMNS: return BLACK_QUEENSIDE;
+            case NUM_SQUARES - 1: return BLACK_KINGSIDE;
+            default: return 0;
+        }
+    }
+
+    /**
+     * Pack the castling rights, en passant square and halfmove clock for an undo record
+     * @return Castling rights in the low four bits, the en passant square plus one in the next
+     * seven, and the halfmove clock above them
+     */
+    private int packStateFlags() {
+        return castlingRights | (enPassantSquare + 1) << 4 | halfmoveClock << 11;
+    }
+
+    private void unpackStateFlags(int flags) {
+        castlingRights = flags & ALL_CASTLING;
+        enPassantSquare = ((flags >>> 4) & 0x7f) - 1;
+        halfmoveClock = flags >>> 11;
+    }
+
+    /**
+     * Pop the most recent undo record and put the pieces back as they were.  This does NOT
+     * change the current player.
+     */
+    private void popMove() {
+        historySize--;
+        int move = undoMoves[historySize];
+        Position origin = Position.of(Moves.origin(move));
+        Position destination = Position.of(Moves.destination(move));
+        Piece moved = getPieceAt(destination);
+        Piece replaced = undoCaptured[historySize];
+        undoCaptured[historySize] = null;
+
+        if (replaced != null) {
+            movePiece(replaced, destination);
+        }
+
+        // Put the piece back in its original spot
+        movePiece(moved, origin);
+        zobristKey = undoKeys[historySize];
+
+        unpackStateFlags(undoFlags[historySize]);
+        if (moved.getPlayer() == Player.Black) {
+            fullmoveNumber--;
+        }
     }
 
     /**
@@ -275,17 +1367,56 @@ public class GameState {
      * made move.
      */
     void revert(Move move) {
-        if (move == null || !move.equals(lastMove)) {
+        if (move == null || !isLastMove(move)) {
             throw new IllegalArgumentException("Cannot revert: " + move);
         }
 
-        Piece replaced = move.getReplacedPiece();
-        if (replaced != null) {
-            placePiece(replaced, move.getDestination());
+        popMove();
+    }
+
+    /**
+     * Take back a move that was executed by makeMove, handing the turn back to the player who
+     * made it.  Moves must be taken back in the reverse of the order they were made.
+     * @param move The move to take back
+     * @throws IllegalArgumentException If the move is not the most recently made move
+     */
+    public void unmakeMove(Move move) {
+        if (move == null || !isLastMove(move)) {
+            throw new IllegalArgumentException("Cannot unmake: " + move);
         }
 
-        // Put the piece back in its original spot
-        placePiece(move.getMovedPiece(), move.getOrigin());
+        unmakeMove();
+    }
+
+    /**
+     * Take back the most recently made move, handing the turn back to the player who made it
+     * @throws IllegalStateException If there are no moves to take back
+     */
+    public void unmakeMove() {
+        if (historySize == 0) {
+            throw new IllegalStateException("No moves to take back");
+        }
+
+        toggleCurrentPlayer();
+        popMove();
+    }
+
+    /**
+     * Get the number of moves that can be taken back
+     * @return The depth of the move stack
+     */
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    private boolean isLastMove(Move move) {
+        if (historySize == 0) {
+            return false;
+        }
+
+        int last = undoMoves[historySize - 1];
+        return Moves.origin(last) == move.getOrigin().getIndex()
+                && Moves.destination(last) == move.getDestination().getIndex();
     }
 
     /**
@@ -293,65 +1424,70 @@ public class GameState {
      * @return True if the current player's King is in check
      */
     public boolean isInCheck() {
-        Position kingPosition = findCurrentKing();
-        Piece king = getPieceAt(kingPosition);
-        return king != null && isCoveredBy(kingPosition, currentPlayer.other());
+        PositionCache cache = findPositionCache();
+        if (cache == null) {
+            return isCurrentKingAttacked();
+        }
+
+        Boolean cached = cache.getInCheck(zobristKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        boolean inCheck = isCurrentKingAttacked();
+        cache.putInCheck(zobristKey, inCheck);
+        return inCheck;
+    }
+
+    /**
+     * Work out whether the current player's King is attacked, without consulting the cache
+     * @return True if the current player's King is in check
+     */
+    private boolean isCurrentKingAttacked() {
+        Position kingPosition = kingPositions[currentPlayer.ordinal()];
+        return kingPosition != null && isAttackedBy(kingPosition, currentPlayer.other());
     }
 
     /**
-     * Determine if the game is over.  If so, then the current player is the loser.
-     * @return True if the game is over.
+     * Determine if the game is over, by checkmate or stalemate.  getResult tells which.
+     * @return True if the current player has no legal move
      */
     public boolean isGameOver() {
-        if (isInCheck()) {
-            // Find if the current player can make any moves that will get
-            // the king out of check
-            Map<Piece, Set<Move>> moveMap = findPossibleMoves();
-
-            Set<Move> moves = new HashSet<Move>();
-            for (Set<Move> current : moveMap.values()) {
-                moves.addAll(current);
-            }
+        return !hasAnyLegalMove();
+    }
 
-            // Try all the moves to see if we can find one that gets us out of check
-            for (Move move : moves) {
-                boolean inCheck = wouldBeInCheckAfter(move);
-                if (!inCheck) {
-                    // We have a move that will get us out of check
-                    return false;
-                }
-            }
-            return true;
+    /**
+     * Work out whether the game is over and, if so, how it ended
+     * @return Checkmate if the current player has lost, Stalemate if the game is drawn because
+     * they cannot move, and otherwise InProgress
+     */
+    public GameResult getResult() {
+        if (hasAnyLegalMove()) {
+            return GameResult.InProgress;
         }
-        return false;
+        return isInCheck() ? GameResult.Checkmate : GameResult.Stalemate;
     }
 
     /**
-     * Find the king of the current player
-     * @return The King, or null if one cannot be found
+     * Determine if the current player has a legal move.  Moves are generated as by generateMoves,
+     * but generation stops at the first legal one, and no move is made to test it.  With a
+     * PositionCache the answer is cached per position, or read from the position's cached moves.
+     * @return True if the current player can move
      */
-    private Position findCurrentKing() {
-        Set<Piece> pieces = getPiecesOnBoard(currentPlayer);
-        // Find the king
-        King king = null;
-        for (Piece piece : pieces) {
-            if (piece instanceof King) {
-                king = (King) piece;
-                break;
-            }
+    public boolean hasAnyLegalMove() {
+        PositionCache cache = findPositionCache();
+        if (cache == null) {
+            return generate(null, false);
         }
 
-        return getPositionOf(king);
-    }
-
-    private Set<Piece> filterPieces(Set<Piece> pieces, Player player) {
-        HashSet<Piece> playerPieces = new HashSet<Piece>();
-        for (Piece piece : pieces) {
-            if (piece.getPlayer().equals(player)) {
-                playerPieces.add(piece);
-            }
+        Boolean cached = cache.getHasLegalMove(zobristKey);
+        if (cached != null) {
+            return cached;
         }
-        return playerPieces;
+
+        boolean hasLegalMove = generate(null, false);
+        cache.putHasLegalMove(zobristKey, hasLegalMove);
+        return hasLegalMove;
     }
 
     /**
@@ -360,8 +1496,20 @@ public class GameState {
      * @return True if, after the move was made, the player would be in check
      */
     private boolean wouldBeInCheckAfter(Move move) {
-        boolean putsInCheck = doMakeMove(move);
-        revert(move);
+        // The move came from the piece's own generator, so skip re-validating it
+        Position origin = move.getOrigin();
+        Position destination = move.getDestination();
+        Piece movingPiece = getPieceAt(origin);
+
+        Piece replaced = movePiece(movingPiece, destination);
+        boolean putsInCheck = isCurrentKingAttacked();
+
+        // Move the piece straight back before restoring what it took, so that it keeps its place
+        // in the piece list; callers may be walking that list by index
+        movePiece(movingPiece, origin);
+        if (replaced != null) {
+            movePiece(replaced, destination);
+        }
 
         return putsInCheck;
     }
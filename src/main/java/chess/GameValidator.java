@@ -0,0 +1,491 @@
+package chess;
+
+import chess.pgn.PgnListener;
+import chess.pgn.PgnReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks that every move of every game in a corpus is legal, replaying the games in parallel.
+ *
+ * The corpus is held in a single ByteBuffer (a memory-mapped file, when reading from disk) that is
+ * split in half at game boundaries until the pieces are small enough, and the pieces are then replayed
+ * on a fork-join pool, each into its own GameState.  Nothing is shared between the pieces but the
+ * read-only corpus, so the work spreads over as many cores as the pool has.
+ *
+ * Two formats are understood:
+ * <ul>
+ *     <li>MOVES: one game per line, as the moves the CLI accepts, e.g. "e2 e4 e7 e5 g1 f3".  A line may
+ *     start with a FEN position followed by ';' to play from that position instead of the starting
+ *     one.  Blank lines and lines starting with '#' are ignored, as is the word "move".</li>
+ *     <li>PGN: games in Portable Game Notation, read by PgnReader.</li>
+ * </ul>
+ */
+public class GameValidator {
+
+    /**
+     * The ways a corpus can be written
+     */
+    public enum Format {
+        MOVES, PGN
+    }
+
+    /**
+     * The default number of bytes below which a piece of the corpus is validated without being split
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+
+    private static final Charset FEN_CHARSET = Charset.forName("US-ASCII");
+
+    private final ForkJoinPool pool;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Create a validator that uses every available processor
+     */
+    public GameValidator() {
+        this(new ForkJoinPool());
+    }
+
+    /**
+     * Create a validator
+     * @param pool The pool to run the validation on
+     */
+    public GameValidator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Set how finely the corpus is divided between threads
+     * @param chunkSize The number of bytes below which a piece of the corpus is not split further
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Validate a corpus file, mapping it into memory.  Files ending in ".pgn", or starting with a PGN
+     * tag, are read as PGN.
+     * @param file The corpus
+     * @return What was found
+     * @throws IOException If the file cannot be read
+     */
+    public ValidationResult validate(File file) throws IOException {
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Corpus is too large to map: " + file);
+            }
+
+            ByteBuffer corpus = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Format format = file.getName().toLowerCase().endsWith(".pgn") ? Format.PGN : detectFormat(corpus);
+            return validate(corpus, format);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Validate a corpus held in memory
+     * @param corpus The bytes from its position to its limit are read.  The buffer itself is not
+     * changed.
+     * @param format How the games are written
+     * @return What was found
+     */
+    public ValidationResult validate(ByteBuffer corpus, Format format) {
+        long start = System.nanoTime();
+        Tally tally = pool.invoke(new ValidationTask(corpus, format, corpus.position(), corpus.limit()));
+        long elapsedNanos = System.nanoTime() - start;
+
+        List<String> errors = new ArrayList<String>(tally.failures.size());
+        for (Failure failure : tally.failures) {
+            errors.add(failure.toString());
+        }
+        return new ValidationResult(tally.games, tally.plies, errors, elapsedNanos);
+    }
+
+    /**
+     * Guess the format of a corpus from its first character
+     * @param corpus The corpus
+     * @return PGN if the corpus starts with a tag, otherwise MOVES
+     */
+    public static Format detectFormat(ByteBuffer corpus) {
+        for (int i = corpus.position(); i < corpus.limit(); i++) {
+            byte b = corpus.get(i);
+            if (!isWhitespace(b)) {
+                return b == '[' ? Format.PGN : Format.MOVES;
+            }
+        }
+        return Format.MOVES;
+    }
+
+    /**
+     * Find the first game that starts at or after an offset
+     * @param corpus The corpus
+     * @param format How the games are written
+     * @param from The offset to search from
+     * @param end The offset to stop searching at
+     * @return The offset of the start of the game, or end if there is none
+     */
+    static int findGameStart(ByteBuffer corpus, Format format, int from, int end) {
+        boolean seenMoves = false;
+        int lineStart = nextLineStart(corpus, from, end);
+
+        while (lineStart < end) {
+            if (format == Format.MOVES) {
+                return lineStart;
+            }
+
+            // A PGN game starts at the first tag after some movetext
+            int first = firstNonBlank(corpus, lineStart, end);
+            if (first < end && corpus.get(first) != '\n') {
+                if (corpus.get(first) == '[') {
+                    if (seenMoves && first == lineStart) {
+                        return lineStart;
+                    }
+                } else {
+                    seenMoves = true;
+                }
+            }
+            lineStart = nextLineStart(corpus, lineStart, end);
+        }
+
+        return end;
+    }
+
+    private static int nextLineStart(ByteBuffer corpus, int from, int end) {
+        int i = from;
+        while (i < end && corpus.get(i) != '\n') {
+            i++;
+        }
+        return Math.min(i + 1, end);
+    }
+
+    private static int firstNonBlank(ByteBuffer corpus, int from, int end) {
+        int i = from;
+        while (i < end && corpus.get(i) != '\n' && isWhitespace(corpus.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    /**
+     * Validate a corpus and write the failures, counts and throughput
+     * @param file The corpus
+     * @param out Where to write the report
+     * @return What was found
+     * @throws IOException If the corpus cannot be read
+     */
+    public ValidationResult report(File file, PrintStream out) throws IOException {
+        ValidationResult result = validate(file);
+
+        for (String error : result.getErrors()) {
+            out.println(error);
+        }
+        out.println("Games:        " + result.getGames());
+        out.println("Failed:       " + result.getFailedGames());
+        out.println("Plies:        " + result.getPlies());
+        out.println("Time (ms):    " + result.getElapsedMillis());
+        out.println("Games/second: " + result.getGamesPerSecond());
+        out.println("Plies/second: " + result.getPliesPerSecond());
+
+        return result;
+    }
+
+    /**
+     * Command-line entry point.
+     * Usage: GameValidator [--threads n] file
+     * Exits with status 2 if any game fails to validate.
+     * @param args The command-line arguments
+     */
+    public static void main(String[] args) throws IOException {
+        int numThreads = Runtime.getRuntime().availableProcessors();
+        String fileName = null;
+
+        if (args.length == 3 && args[0].equals("--threads")) {
+            numThreads = Integer.parseInt(args[1]);
+            fileName = args[2];
+        } else if (args.length == 1) {
+            fileName = args[0];
+        }
+
+        if (fileName == null) {
+            System.err.println("Usage: GameValidator [--threads n] file");
+            System.exit(1);
+        }
+
+        GameValidator validator = new GameValidator(new ForkJoinPool(numThreads));
+        ValidationResult result = validator.report(new File(fileName), System.out);
+        if (result.getFailedGames() > 0) {
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Validate one piece of the corpus, splitting it first if it is large
+     */
+    private class ValidationTask extends RecursiveTask<Tally> {
+        private final ByteBuffer corpus;
+        private final Format format;
+        private final int start;
+        private final int end;
+
+        ValidationTask(ByteBuffer corpus, Format format, int start, int end) {
+            this.corpus = corpus;
+            this.format = format;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (end - start > chunkSize) {
+                int split = findGameStart(corpus, format, start + (end - start) / 2, end);
+                if (split < end) {
+                    ValidationTask first = new ValidationTask(corpus, format, start, split);
+                    ValidationTask second = new ValidationTask(corpus, format, split, end);
+                    first.fork();
+                    Tally secondTally = second.compute();
+                    return first.join().append(secondTally);
+                }
+            }
+
+            return format == Format.PGN ? validatePgn() : validateMoves();
+        }
+
+        private Tally validatePgn() {
+            ByteBuffer slice = corpus.duplicate();
+            slice.limit(end);
+            slice.position(start);
+
+            TallyListener listener = new TallyListener();
+            try {
+                new PgnReader(slice).readAll(listener);
+            } catch (IOException e) {
+                throw new IllegalStateException("Buffers are not read through streams", e);
+            }
+            return listener.tally;
+        }
+
+        private Tally validateMoves() {
+            Tally tally = new Tally();
+            MoveList moves = new MoveList();
+
+            int lineStart = start;
+            while (lineStart < end) {
+                int lineEnd = lineStart;
+                while (lineEnd < end && corpus.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                validateLine(lineStart, lineEnd, tally, moves);
+                lineStart = lineEnd + 1;
+            }
+
+            return tally;
+        }
+
+        private void validateLine(int lineStart, int lineEnd, Tally tally, MoveList moves) {
+            int i = firstNonBlank(corpus, lineStart, lineEnd);
+            if (i == lineEnd || corpus.get(i) == '#') {
+                return;
+            }
+            long game = ++tally.games;
+
+            int fenEnd = i;
+            while (fenEnd < lineEnd && corpus.get(fenEnd) != ';') {
+                fenEnd++;
+            }
+
+            GameState gameState;
+            if (fenEnd < lineEnd) {
+                byte[] fen = new byte[fenEnd - i];
+                for (int j = 0; j < fen.length; j++) {
+                    fen[j] = corpus.get(i + j);
+                }
+                try {
+                    gameState = Fen.parse(new String(fen, FEN_CHARSET));
+                } catch (InvalidFenException e) {
+                    tally.failures.add(new Failure(game, 0, e.getMessage()));
+                    return;
+                }
+                i = fenEnd + 1;
+            } else {
+                gameState = new GameState();
+                gameState.reset();
+            }
+
+            int ply = 0;
+            int origin = -1;
+            while (true) {
+                i = firstNonBlank(corpus, i, lineEnd);
+                if (i == lineEnd) {
+                    break;
+                }
+
+                int tokenEnd = i;
+                while (tokenEnd < lineEnd && !isWhitespace(corpus.get(tokenEnd))) {
+                    tokenEnd++;
+                }
+                if (isWord(i, tokenEnd, "move")) {
+                    i = tokenEnd;
+                    continue;
+                }
+
+                int square = tokenEnd - i == 2 ? squareAt(i) : -1;
+                if (square < 0) {
+                    tally.failures.add(new Failure(game, ply + 1, "Not a square: " + text(i, tokenEnd)));
+                    return;
+                }
+                i = tokenEnd;
+
+                if (origin < 0) {
+                    origin = square;
+                    continue;
+                }
+
+                gameState.generateMoves(moves);
+                int index = moves.indexOf(Moves.encode(origin, square, 0));
+                if (index < 0) {
+                    tally.failures.add(new Failure(game, ply + 1,
+                            "Illegal move: " + Position.of(origin) + " " + Position.of(square)));
+                    return;
+                }
+
+                gameState.makeMove(moves.get(index));
+                tally.plies++;
+                ply++;
+                origin = -1;
+            }
+
+            if (origin >= 0) {
+                tally.failures.add(new Failure(game, ply + 1, "Missing destination for " + Position.of(origin)));
+            }
+        }
+
+        /**
+         * Read a square such as "e4"
+         * @return The square's index, or -1 if the text is not a square
+         */
+        private int squareAt(int i) {
+            int column = corpus.get(i) - GameState.MIN_COLUMN;
+            int row = corpus.get(i + 1) - '0' - GameState.MIN_ROW;
+            if (column < 0 || column > GameState.MAX_COLUMN - GameState.MIN_COLUMN
+                    || row < 0 || row > GameState.MAX_ROW - GameState.MIN_ROW) {
+                return -1;
+            }
+            return row * GameState.NUM_COLUMNS + column;
+        }
+
+        private boolean isWord(int from, int to, String word) {
+            if (to - from != word.length()) {
+                return false;
+            }
+            for (int i = 0; i < word.length(); i++) {
+                if (corpus.get(from + i) != word.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private String text(int from, int to) {
+            StringBuilder builder = new StringBuilder(to - from);
+            for (int i = from; i < to; i++) {
+                builder.append((char) corpus.get(i));
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Counts the games and moves of a PGN piece of the corpus
+     */
+    private static class TallyListener implements PgnListener {
+        private final Tally tally = new Tally();
+
+        @Override
+        public void gameStarted(long gameNumber) {
+            tally.games = gameNumber;
+        }
+
+        @Override
+        public void tag(String name, String value) {
+        }
+
+        @Override
+        public void move(GameState gameState, int move) {
+            tally.plies++;
+        }
+
+        @Override
+        public void gameFinished(String result) {
+        }
+
+        @Override
+        public void gameFailed(int ply, String message) {
+            tally.failures.add(new Failure(tally.games, ply, message));
+        }
+    }
+
+    /**
+     * The counts for one piece of the corpus.  Games are numbered from 1 within the piece, and
+     * renumbered as the pieces are joined back together.
+     */
+    private static class Tally {
+        private long games;
+        private long plies;
+        private final List<Failure> failures = new ArrayList<Failure>();
+
+        /**
+         * Add the counts of the piece that follows this one
+         * @return This tally
+         */
+        Tally append(Tally next) {
+            for (Failure failure : next.failures) {
+                failure.game += games;
+                failures.add(failure);
+            }
+            games += next.games;
+            plies += next.plies;
+            return this;
+        }
+    }
+
+    /**
+     * A game that could not be replayed
+     */
+    private static class Failure {
+        private long game;
+        private final int ply;
+        private final String message;
+
+        Failure(long game, int ply, String message) {
+            this.game = game;
+            this.ply = ply;
+            this.message = message;
+        }
+
+        @Override
+        public String toString() {
+            return ply == 0 ? "Game " + game + ": " + message : "Game " + game + ", ply " + ply + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package chess;
+
+/**
+ * Indicates a FEN string that could not be read
+ */
+public class InvalidFenException extends RuntimeException {
+    public InvalidFenException(String msg, String fen) {
+        super(msg + " (FEN: " + fen + ")");
+    }
+}
@@ -23,8 +23,8 @@ public class Move {
         }
 
         String[] parts = fromToStr.split(" ");
-        origin = new Position(parts[0]);
-        destination = new Position(parts[1]);
+        origin = Position.valueOf(parts[0]);
+        destination = Position.valueOf(parts[1]);
     }
 
     public Position getOrigin() {
@@ -0,0 +1,122 @@
+package chess;
+
+/**
+ * A reusable, growable buffer of moves packed by Moves.  Clearing and refilling a list does not
+ * allocate once it has grown large enough, so one list per search ply can be kept for the life
+ * of a search.
+ */
+public class MoveList {
+
+    /**
+     * Enough room for the moves of any legal chess position
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size = 0;
+
+    /**
+     * Create a list with the default capacity
+     */
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a list
+     * @param capacity The number of moves to make room for up front
+     */
+    public MoveList(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        moves = new int[capacity];
+    }
+
+    /**
+     * Add a move to the end of the list, growing it if needed
+     * @param move The packed move
+     */
+    public void add(int move) {
+        if (size == moves.length) {
+            int[] grown = new int[moves.length * 2];
+            System.arraycopy(moves, 0, grown, 0, size);
+            moves = grown;
+        }
+        moves[size++] = move;
+    }
+
+    /**
+     * Get a move
+     * @param index The position in the list
+     * @return The packed move
+     * @throws IndexOutOfBoundsException If the index is not less than the size
+     */
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return moves[index];
+    }
+
+    /**
+     * Replace a move
+     * @param index The position in the list
+     * @param move The packed move
+     * @throws IndexOutOfBoundsException If the index is not less than the size
+     */
+    public void set(int index, int move) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        moves[index] = move;
+    }
+
+    /**
+     * Get the number of moves in the list
+     * @return The size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Determine if the list has no moves
+     * @return True if the size is 0
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Empty the list, keeping its storage for reuse
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Look for a move between two squares, ignoring flags
+     * @param move The packed move to look for
+     * @return The index of the first move with the same origin and destination, or -1
+     */
+    public int indexOf(int move) {
+        int squares = Moves.squares(move);
+        for (int i = 0; i < size; i++) {
+            if (Moves.squares(moves[i]) == squares) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Copy the moves out
+     * @return A new array holding exactly the moves in the list
+     */
+    public int[] toArray() {
+        int[] copy = new int[size];
+        System.arraycopy(moves, 0, copy, 0, size);
+        return copy;
+    }
+}
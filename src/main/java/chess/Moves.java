@@ -0,0 +1,135 @@
+package chess;
+
+import chess.pieces.PieceType;
+
+/**
+ * Static helpers for moves packed into a single int, for code that generates moves in bulk and
+ * cannot afford a Move object per move.  The layout is:
+ * <pre>
+ *   bits  0-5   destination square index
+ *   bits  6-11  origin square index
+ *   bits 12-15  flags (CAPTURE)
+ *   bits 16-18  type of the captured piece, as its ordinal plus one; 0 if unknown or none
+ * </pre>
+ * The low twelve bits match the packing used by the transposition tables, so a packed move can be
+ * stored there directly.  Zero is never a valid move, and can be used to mean "no move".
+ */
+public final class Moves {
+
+    /**
+     * A value that is never a real move
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Flag set when the move lands on an opposing piece
+     */
+    public static final int CAPTURE = 1 << 12;
+
+    private static final int SQUARE_MASK = 63;
+    private static final int ORIGIN_SHIFT = 6;
+    private static final int FLAGS_MASK = 0xf << 12;
+    private static final int CAPTURED_SHIFT = 16;
+
+    private Moves() {
+    }
+
+    /**
+     * Pack a move
+     * @param origin The index of the square the piece moves from
+     * @param destination The index of the square it moves to
+     * @param captured The type of the piece taken, or null if the move is not a capture
+     * @return The packed move
+     */
+    public static int encode(int origin, int destination, PieceType captured) {
+        int move = origin << ORIGIN_SHIFT | destination;
+        if (captured != null) {
+            move |= CAPTURE | (captured.ordinal() + 1) << CAPTURED_SHIFT;
+        }
+        return move;
+    }
+
+    /**
+     * Pack a move that captures a piece of no standard type, or whose captured piece is unknown
+     * @param origin The index of the square the piece moves from
+     * @param destination The index of the square it moves to
+     * @param flags Any flags to set, such as CAPTURE
+     * @return The packed move
+     */
+    public static int encode(int origin, int destination, int flags) {
+        return origin << ORIGIN_SHIFT | destination | (flags & FLAGS_MASK);
+    }
+
+    /**
+     * Get the square a packed move starts from
+     * @param move The packed move
+     * @return The origin square index
+     */
+    public static int origin(int move) {
+        return (move >>> ORIGIN_SHIFT) & SQUARE_MASK;
+    }
+
+    /**
+     * Get the square a packed move ends on
+     * @param move The packed move
+     * @return The destination square index
+     */
+    public static int destination(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Get the flags of a packed move
+     * @param move The packed move
+     * @return The flags, such as CAPTURE
+     */
+    public static int flags(int move) {
+        return move & FLAGS_MASK;
+    }
+
+    /**
+     * Determine if a packed move captures a piece
+     * @param move The packed move
+     * @return True if the CAPTURE flag is set
+     */
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * Get the type of the piece a packed move captures
+     * @param move The packed move
+     * @return The type, or null if the move is not a capture or the piece is not a standard type
+     */
+    public static PieceType capturedType(int move) {
+        int type = (move >>> CAPTURED_SHIFT) & 7;
+        return type == 0 ? null : PieceType.forOrdinal(type - 1);
+    }
+
+    /**
+     * Get the origin and destination of a packed move as positions on their own, without flags
+     * @param move The packed move
+     * @return The move with only its low twelve bits kept
+     */
+    public static int squares(int move) {
+        return move & (SQUARE_MASK << ORIGIN_SHIFT | SQUARE_MASK);
+    }
+
+    /**
+     * Convert a packed move to a Move object
+     * @param move The packed move
+     * @return A new Move between the same squares
+     */
+    public static Move toMove(int move) {
+        return new Move(Position.of(origin(move)), Position.of(destination(move)));
+    }
+
+    /**
+     * Describe a packed move in the same notation as Move
+     * @param move The packed move
+     * @return The origin and destination, e.g. "e2 e4"
+     */
+    public static String toString(int move) {
+        return Position.of(origin(move)) + " " + Position.of(destination(move));
+    }
+}
@@ -0,0 +1,198 @@
+package chess;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * Performance test ("perft") driver for the move generator.  Walks the tree of legal moves to a
+ * fixed depth and counts the leaf nodes, which both measures how quickly moves can be generated,
+ * made and taken back, and gives a number that can be compared against known-good counts.
+ */
+public class Perft {
+
+    private final GameState gameState;
+
+    /**
+     * A move buffer for each remaining depth, reused from one count to the next
+     */
+    private MoveList[] moveLists = new MoveList[0];
+
+    /**
+     * Create a perft driver
+     * @param gameState The position to count from.  It is returned to the same position after
+     * every count.
+     */
+    public Perft(GameState gameState) {
+        this.gameState = gameState;
+    }
+
+    /**
+     * Count the leaf nodes of the legal move tree
+     * @param depth The number of plies to search
+     * @return The number of positions reachable in exactly depth plies
+     * @throws IllegalArgumentException If the depth is negative
+     */
+    public long perft(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("Perft depth must not be negative: " + depth);
+        } else if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = getMoveList(depth);
+        int numMoves = gameState.generateMoves(moves);
+        if (depth == 1) {
+            return numMoves;
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < numMoves; i++) {
+            gameState.makeMove(moves.get(i));
+            nodes += perft(depth - 1);
+            gameState.unmakeMove();
+        }
+
+        return nodes;
+    }
+
+    /**
+     * Count the leaf nodes below each legal move in the current position ("split perft")
+     * @param depth The number of plies to search, including the root move
+     * @return The leaf counts, keyed by root move and ordered by the move's notation
+     * @throws IllegalArgumentException If the depth is less than one, leaving no root moves
+     */
+    public Map<Move, Long> divide(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide depth must be at least 1: " + depth);
+        }
+
+        List<Move> moves = findMoves();
+        Collections.sort(moves, new Comparator<Move>() {
+            @Override
+            public int compare(Move first, Move second) {
+                return first.toString().compareTo(second.toString());
+            }
+        });
+
+        Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+        for (Move move : moves) {
+            gameState.makeMove(move);
+            counts.put(move, perft(depth - 1));
+            gameState.unmakeMove(move);
+        }
+
+        return counts;
+    }
+
+    /**
+     * Flatten the legal moves of the current player into a single list
+     * @return The moves
+     */
+    private List<Move> findMoves() {
+        MoveList packed = new MoveList();
+        gameState.generateMoves(packed);
+
+        List<Move> moves = new ArrayList<Move>(packed.size());
+        for (int i = 0; i < packed.size(); i++) {
+            moves.add(Moves.toMove(packed.get(i)));
+        }
+        return moves;
+    }
+
+    /**
+     * Get the move buffer for a depth, creating it the first time that depth is reached
+     * @param depth The number of plies left to search
+     * @return The buffer
+     */
+    private MoveList getMoveList(int depth) {
+        if (depth >= moveLists.length) {
+            MoveList[] grown = new MoveList[depth + 1];
+            System.arraycopy(moveLists, 0, grown, 0, moveLists.length);
+            moveLists = grown;
+        }
+
+        if (moveLists[depth] == null) {
+            moveLists[depth] = new MoveList();
+        }
+        return moveLists[depth];
+    }
+
+    /**
+     * Run a perft count and write the node count, elapsed time and throughput
+     * @param depth The depth to count to
+     * @param divide True to also report the count below each root move
+     * @param out Where to write the report
+     * @return The total number of leaf nodes
+     */
+    public long report(int depth, boolean divide, PrintStream out) {
+        long start = System.nanoTime();
+        long nodes;
+
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<Move, Long> entry : divide(depth).entrySet()) {
+                out.println(entry.getKey() + ": " + entry.getValue());
+                nodes += entry.getValue();
+            }
+        } else {
+            nodes = perft(depth);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long nodesPerSecond = elapsedNanos == 0 ? 0 : (long) (nodes * 1e9 / elapsedNanos);
+
+        out.println("Depth:        " + depth);
+        out.println("Nodes:        " + nodes);
+        out.println("Time (ms):    " + elapsedNanos / 1000000);
+        out.println("Nodes/second: " + nodesPerSecond);
+
+        return nodes;
+    }
+
+    /**
+     * Command-line entry point.
+     * Usage: Perft [--divide] depth [colrow colrow ...]
+     * Any squares after the depth are read in pairs as moves to play from the starting position
+     * before counting.
+     * @param args The command-line arguments
+     */
+    public static void main(String[] args) {
+        List<String> arguments = new ArrayList<String>(Arrays.asList(args));
+        boolean divide = arguments.remove("--divide");
+
+        int depth = -1;
+        if (!arguments.isEmpty() && arguments.size() % 2 == 1) {
+            try {
+                depth = Integer.parseInt(arguments.get(0));
+            } catch (NumberFormatException e) {
+                depth = -1;
+            }
+        }
+        if (depth < (divide ? 1 : 0)) {
+            System.err.println("Usage: Perft [--divide] depth [colrow colrow ...]");
+            System.err.println("The depth must be at least 0, or 1 with --divide");
+            System.exit(1);
+        }
+
+        GameState gameState = new GameState();
+        gameState.reset();
+        for (int i = 1; i < arguments.size(); i += 2) {
+            String moveText = arguments.get(i) + " " + arguments.get(i + 1);
+            boolean made;
+            try {
+                made = gameState.makeMove(new Move(moveText));
+            } catch (InvalidPositionException e) {
+                made = false;
+            } catch (InvalidMoveException e) {
+                made = false;
+            }
+            if (!made) {
+                System.err.println("Illegal move: " + moveText);
+                System.err.println("Usage: Perft [--divide] depth [colrow colrow ...]");
+                System.exit(1);
+            }
+        }
+
+        new Perft(gameState).report(depth, divide, System.out);
+    }
+}
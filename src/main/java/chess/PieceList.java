@@ -0,0 +1,155 @@
+package chess;
+
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+import java.util.Arrays;
+
+/**
+ * The pieces each player has on the board, grouped by type and kept up to date by the GameState
+ * as pieces are placed, moved and captured.  Reading a list allocates nothing:
+ * <pre>
+ *   for (int i = 0; i &lt; pieces.size(player, PieceType.Rook); i++) {
+ *       Piece rook = pieces.get(player, PieceType.Rook, i);
+ *       int square = pieces.getSquare(player, PieceType.Rook, i);
+ *   }
+ * </pre>
+ * Pieces that are not of a standard type are listed under a null type.  The order of each list
+ * changes as pieces are captured, so indexes are only stable while the position is unchanged.
+ */
+public class PieceList {
+
+    /**
+     * The lists for each player: one per standard type plus one for other pieces
+     */
+    private static final int KINDS = PieceType.COUNT + 1;
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The pieces and their square indexes, indexed by player ordinal, then kind, then slot
+     */
+    private final Piece[][][] pieces = new Piece[Player.values().length][KINDS][];
+    private final int[][][] squares = new int[Player.values().length][KINDS][];
+    private final int[][] sizes = new int[Player.values().length][KINDS];
+
+    /**
+     * The slot in its list of the piece on each square, indexed by square
+     */
+    private final int[] slots = new int[GameState.NUM_SQUARES];
+
+    PieceList() {
+        for (int player = 0; player < pieces.length; player++) {
+            for (int kind = 0; kind < KINDS; kind++) {
+                pieces[player][kind] = new Piece[INITIAL_CAPACITY];
+                squares[player][kind] = new int[INITIAL_CAPACITY];
+            }
+        }
+    }
+
+    /**
+     * Get the number of pieces of a type a player has on the board
+     * @param player The owning player
+     * @param type The piece type, or null for pieces of no standard type
+     * @return The count
+     */
+    public int size(Player player, PieceType type) {
+        return sizes[player.ordinal()][kindOf(type)];
+    }
+
+    /**
+     * Get the number of pieces a player has on the board
+     * @param player The owning player
+     * @return The count over all types
+     */
+    public int size(Player player) {
+        int total = 0;
+        for (int size : sizes[player.ordinal()]) {
+            total += size;
+        }
+        return total;
+    }
+
+    /**
+     * Get a piece from a list
+     * @param player The owning player
+     * @param type The piece type, or null for pieces of no standard type
+     * @param index The position in the list; less than size(player, type)
+     * @return The piece
+     */
+    public Piece get(Player player, PieceType type, int index) {
+        checkIndex(player, type, index);
+        return pieces[player.ordinal()][kindOf(type)][index];
+    }
+
+    /**
+     * Get where a piece from a list stands
+     * @param player The owning player
+     * @param type The piece type, or null for pieces of no standard type
+     * @param index The position in the list; less than size(player, type)
+     * @return The index of the piece's square
+     */
+    public int getSquare(Player player, PieceType type, int index) {
+        checkIndex(player, type, index);
+        return squares[player.ordinal()][kindOf(type)][index];
+    }
+
+    /**
+     * Record a piece arriving on the board
+     * @param piece The piece
+     * @param square The index of its square
+     */
+    void add(Piece piece, int square) {
+        int player = piece.getPlayer().ordinal();
+        int kind = kindOf(piece.getType());
+        int slot = sizes[player][kind]++;
+
+        if (slot == pieces[player][kind].length) {
+            pieces[player][kind] = Arrays.copyOf(pieces[player][kind], slot * 2);
+            squares[player][kind] = Arrays.copyOf(squares[player][kind], slot * 2);
+        }
+
+        pieces[player][kind][slot] = piece;
+        squares[player][kind][slot] = square;
+        slots[square] = slot;
+    }
+
+    /**
+     * Record a piece leaving the board.  The last piece of its list takes its slot.
+     * @param piece The piece
+     * @param square The index of the square it is leaving
+     */
+    void remove(Piece piece, int square) {
+        int player = piece.getPlayer().ordinal();
+        int kind = kindOf(piece.getType());
+        int slot = slots[square];
+        int last = --sizes[player][kind];
+
+        pieces[player][kind][slot] = pieces[player][kind][last];
+        squares[player][kind][slot] = squares[player][kind][last];
+        slots[squares[player][kind][slot]] = slot;
+        pieces[player][kind][last] = null;
+    }
+
+    /**
+     * Record a piece moving between two squares
+     * @param piece The piece
+     * @param from The index of the square it left
+     * @param to The index of the square it arrived on, which must now be empty of other pieces
+     */
+    void move(Piece piece, int from, int to) {
+        int slot = slots[from];
+        squares[piece.getPlayer().ordinal()][kindOf(piece.getType())][slot] = to;
+        slots[to] = slot;
+    }
+
+    private void checkIndex(Player player, PieceType type, int index) {
+        if (index < 0 || index >= size(player, type)) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size(player, type));
+        }
+    }
+
+    private static int kindOf(PieceType type) {
+        return type == null ? PieceType.COUNT : type.ordinal();
+    }
+}
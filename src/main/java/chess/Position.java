@@ -1,7 +1,9 @@
 package chess;
 
 /**
- * Describes a position on the Chess Board
+ * Describes a position on the Chess Board.  Every square has a canonical, shared instance that can be
+ * obtained through Position.of / Position.valueOf, and step() only ever returns those instances,
+ * so walking the board does not allocate.
  */
 public class Position {
 
@@ -10,8 +12,34 @@ public class Position {
      */
     public static final Position OFF_BOARD = new Position();
 
-    private int row;
-    private char column;
+    /**
+     * The canonical instance for every square, indexed by getIndex()
+     */
+    private static final Position[] SQUARES = new Position[GameState.NUM_SQUARES];
+
+    /**
+     * The neighbour of every square in every direction, indexed by square then direction
+     * ordinal.  Entries are null where the step would leave the board.
+     */
+    private static final Position[][] NEIGHBOURS = new Position[GameState.NUM_SQUARES][Direction.values().length];
+
+    static {
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            SQUARES[index] = new Position(
+                    (char) (GameState.MIN_COLUMN + index % GameState.NUM_COLUMNS),
+                    GameState.MIN_ROW + index / GameState.NUM_COLUMNS);
+        }
+
+        for (Position square : SQUARES) {
+            for (Direction direction : Direction.values()) {
+                NEIGHBOURS[square.index][direction.ordinal()] = square.computeStep(direction);
+            }
+        }
+    }
+
+    private final int row;
+    private final char column;
+    private final int index;
 
     /**
      * Constructor used to create the position that represents off the board
@@ -19,10 +47,11 @@ public class Position {
     private Position() {
         row = -1;
         column = 'z';
+        index = -1;
     }
 
     /**
-     * Create a new position object
+     * Create a new position object.  Prefer Position.of, which returns the shared instance.
      *
      * @param column The column
      * @param row The row
@@ -31,10 +60,12 @@ public class Position {
     public Position(char column, int row) {
         this.row = validateRow(row);
         this.column = validateColumn(column);
+        this.index = indexOf(this.column, this.row);
     }
 
     /**
-     * Create a new Position object by parsing the string
+     * Create a new Position object by parsing the string.  Prefer Position.valueOf, which returns
+     * the shared instance.
      * @param colrow The column and row to use.  I.e. "a1", "h7", etc.
      */
     public Position(String colrow) {
@@ -46,6 +77,52 @@ public class Position {
         this.column = validateColumn(chars[0]);
         int rowFromStr = Character.digit(chars[1], 10);
         this.row = validateRow(rowFromStr);
+        this.index = indexOf(this.column, this.row);
+    }
+
+    /**
+     * Get the shared instance for a square
+     * @param index The index of the square, as returned by getIndex()
+     * @return The position
+     * @throws ArrayIndexOutOfBoundsException If the index is not between 0 and 63
+     */
+    public static Position of(int index) {
+        return SQUARES[index];
+    }
+
+    /**
+     * Get the shared instance for a square
+     * @param column The column
+     * @param row The row
+     * @return The position
+     * @throws InvalidPositionException if the given position isn't valid
+     */
+    public static Position of(char column, int row) {
+        char lower = Character.toLowerCase(column);
+        if (row < GameState.MIN_ROW || row > GameState.MAX_ROW
+                || lower < GameState.MIN_COLUMN || lower > GameState.MAX_COLUMN) {
+            throw new InvalidPositionException("Invalid Position", row, column);
+        }
+
+        return SQUARES[indexOf(lower, row)];
+    }
+
+    /**
+     * Get the shared instance for a square by parsing the string
+     * @param colrow The column and row to use.  I.e. "a1", "h7", etc.
+     * @return The position
+     * @throws InvalidPositionException if the string does not name a square
+     */
+    public static Position valueOf(String colrow) {
+        if (colrow.length() != 2) {
+            throw new InvalidPositionException("Wrong length string to create a position: " + colrow, 0, ' ');
+        }
+
+        return of(colrow.charAt(0), Character.digit(colrow.charAt(1), 10));
+    }
+
+    private static int indexOf(char column, int row) {
+        return (row - GameState.MIN_ROW) * GameState.NUM_COLUMNS + (column - GameState.MIN_COLUMN);
     }
 
     public int getRow() {
@@ -56,27 +133,54 @@ public class Position {
         return column;
     }
 
+    /**
+     * Get the index of this position, counting from 0 at a1 along each row up to 63 at h8.
+     * @return The index of the square, or -1 if this position is off the board
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the neighbouring square in a direction
+     * @param direction The direction to step in
+     * @return The shared instance for the neighbouring square, or null if the step leaves the board
+     */
     public Position step(Direction direction) {
+        if (index < 0) {
+            return null;
+        }
+
+        return NEIGHBOURS[index][direction.ordinal()];
+    }
+
+    /**
+     * Work out the neighbouring square in a direction; used to fill in the NEIGHBOURS table
+     * @param direction The direction to step in
+     * @return The neighbouring square, or null if the step leaves the board
+     */
+    private Position computeStep(Direction direction) {
         switch (direction) {
-            case North: return safeBuilder(column, row + 1);
-            case South: return safeBuilder(column, row - 1);
-            case East: return safeBuilder(column + 1, row);
-            case West: return safeBuilder(column - 1, row);
-
-            case NorthEast: return safeBuilder(column + 1, row + 1);
-            case SouthEast: return safeBuilder(column + 1, row - 1);
-            case NorthWest: return safeBuilder(column - 1, row + 1);
-            case SouthWest: return safeBuilder(column - 1, row - 1);
+            case North: return squareAt(column, row + 1);
+            case South: return squareAt(column, row - 1);
+            case East: return squareAt(column + 1, row);
+            case West: return squareAt(column - 1, row);
+
+            case NorthEast: return squareAt(column + 1, row + 1);
+            case SouthEast: return squareAt(column + 1, row - 1);
+            case NorthWest: return squareAt(column - 1, row + 1);
+            case SouthWest: return squareAt(column - 1, row - 1);
             default: throw new IllegalArgumentException("Unknown direction: " + direction);
         }
     }
 
-    private Position safeBuilder(int column, int row) {
-        try {
-            return new Position((char) column, row);
-        } catch (InvalidPositionException ex) {
+    private static Position squareAt(int column, int row) {
+        if (row < GameState.MIN_ROW || row > GameState.MAX_ROW
+                || column < GameState.MIN_COLUMN || column > GameState.MAX_COLUMN) {
             return null;
         }
+
+        return SQUARES[indexOf((char) column, row)];
     }
 
     @Override
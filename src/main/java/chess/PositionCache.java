@@ -0,0 +1,244 @@
+package chess;
+
+/**
+ * A fixed-size transposition table that remembers, per position, the legal moves of the player to
+ * move, whether that player is in check and whether they have any legal move at all.  Positions
+ * are identified by their Zobrist key, so a cache may be shared by several game states, but it is
+ * not thread-safe.
+ *
+ * The table is two-way set associative: each key maps to a bucket of two entries, and when both
+ * are taken by other positions the least recently used one is replaced.
+ *
+ * Only positions made up of the standard piece types can be cached, since other pieces do not
+ * contribute to the Zobrist key; GameState does not use the cache for any other position.
+ */
+public class PositionCache {
+
+    private static final byte VALID = 1;
+    private static final byte CHECK_KNOWN = 1 << 1;
+    private static final byte IN_CHECK = 1 << 2;
+    private static final byte LEGAL_MOVE_KNOWN = 1 << 3;
+    private static final byte HAS_LEGAL_MOVE = 1 << 4;
+
+    private final long[] keys;
+    private final int[][] moves;
+    private final byte[] flags;
+
+    /**
+     * For each bucket, which of its two entries was used most recently
+     */
+    private final byte[] mostRecent;
+
+    private final int bucketMask;
+
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Create a cache
+     * @param capacity The number of positions to hold.  This is rounded up to a power of two,
+     * and is at least two.
+     */
+    public PositionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        }
+
+        int size = Math.max(2, Integer.highestOneBit(capacity - 1) << 1);
+        keys = new long[size];
+        moves = new int[size][];
+        flags = new byte[size];
+        mostRecent = new byte[size / 2];
+        bucketMask = size / 2 - 1;
+    }
+
+    /**
+     * Get the number of positions the cache can hold
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Get the number of lookups that found what they were looking for
+     * @return The hit count
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Get the number of lookups that found nothing
+     * @return The miss count
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Forget every position and reset the hit and miss counts
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+            moves[i] = null;
+            flags[i] = 0;
+        }
+
+        for (int i = 0; i < mostRecent.length; i++) {
+            mostRecent[i] = 0;
+        }
+
+        hits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Look up the legal moves of a position
+     * @param key The Zobrist key of the position
+     * @return The moves, each packed by Moves, or null if they are not cached.  The array
+     * belongs to the cache and must not be modified.
+     */
+    int[] getMoves(long key) {
+        int entry = find(key);
+        return record(entry < 0 ? null : moves[entry]);
+    }
+
+    /**
+     * Remember the legal moves of a position
+     * @param key The Zobrist key of the position
+     * @param packedMoves The moves, each packed by Moves
+     */
+    void putMoves(long key, int[] packedMoves) {
+        moves[store(key)] = packedMoves;
+    }
+
+    /**
+     * Look up whether the player to move is in check
+     * @param key The Zobrist key of the position
+     * @return The cached answer, or null if it is not known
+     */
+    Boolean getInCheck(long key) {
+        return getFlag(key, CHECK_KNOWN, IN_CHECK);
+    }
+
+    /**
+     * Remember whether the player to move is in check
+     * @param key The Zobrist key of the position
+     * @param inCheck The answer
+     */
+    void putInCheck(long key, boolean inCheck) {
+        putFlag(key, CHECK_KNOWN, IN_CHECK, inCheck);
+    }
+
+    /**
+     * Look up whether the player to move has any legal move.  If the position's moves are cached
+     * the answer is read from them.
+     * @param key The Zobrist key of the position
+     * @return The cached answer, or null if it is not known
+     */
+    Boolean getHasLegalMove(long key) {
+        int entry = find(key);
+        if (entry < 0) {
+            return record(null);
+        } else if ((flags[entry] & LEGAL_MOVE_KNOWN) != 0) {
+            return record((flags[entry] & HAS_LEGAL_MOVE) != 0);
+        } else if (moves[entry] != null) {
+            return record(moves[entry].length > 0);
+        }
+        return record(null);
+    }
+
+    /**
+     * Remember whether the player to move has any legal move
+     * @param key The Zobrist key of the position
+     * @param hasLegalMove The answer
+     */
+    void putHasLegalMove(long key, boolean hasLegalMove) {
+        putFlag(key, LEGAL_MOVE_KNOWN, HAS_LEGAL_MOVE, hasLegalMove);
+    }
+
+    private Boolean getFlag(long key, byte knownFlag, byte valueFlag) {
+        int entry = find(key);
+        if (entry < 0 || (flags[entry] & knownFlag) == 0) {
+            return record(null);
+        }
+
+        return record((flags[entry] & valueFlag) != 0);
+    }
+
+    private void putFlag(long key, byte knownFlag, byte valueFlag, boolean value) {
+        int entry = store(key);
+        flags[entry] |= knownFlag;
+        if (value) {
+            flags[entry] |= valueFlag;
+        } else {
+            flags[entry] &= ~valueFlag;
+        }
+    }
+
+    /**
+     * Count a lookup as a hit or a miss
+     * @param result The result of the lookup
+     * @param <T> The type of the result
+     * @return The same result
+     */
+    private <T> T record(T result) {
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Find the entry holding a key
+     * @param key The key
+     * @return The entry index, or -1 if the key is not in the table
+     */
+    private int find(long key) {
+        int bucket = (int) key & bucketMask;
+        for (int way = 0; way < 2; way++) {
+            int entry = bucket * 2 + way;
+            if ((flags[entry] & VALID) != 0 && keys[entry] == key) {
+                mostRecent[bucket] = (byte) way;
+                return entry;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Find the entry holding a key, claiming one if the key is not in the table.  An empty entry
+     * is preferred; otherwise the least recently used entry of the bucket is cleared and reused.
+     * @param key The key
+     * @return The entry index
+     */
+    private int store(long key) {
+        int entry = find(key);
+        if (entry >= 0) {
+            return entry;
+        }
+
+        int bucket = (int) key & bucketMask;
+        int way;
+        if ((flags[bucket * 2] & VALID) == 0) {
+            way = 0;
+        } else if ((flags[bucket * 2 + 1] & VALID) == 0) {
+            way = 1;
+        } else {
+            way = 1 - mostRecent[bucket];
+        }
+
+        entry = bucket * 2 + way;
+        keys[entry] = key;
+        moves[entry] = null;
+        flags[entry] = VALID;
+        mostRecent[bucket] = (byte) way;
+
+        return entry;
+    }
+}
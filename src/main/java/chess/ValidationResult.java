@@ -0,0 +1,78 @@
+package chess;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of validating a corpus of games: how much was checked, how quickly, and what failed
+ */
+public class ValidationResult {
+
+    private final long games;
+    private final long plies;
+    private final List<String> errors;
+    private final long elapsedNanos;
+
+    ValidationResult(long games, long plies, List<String> errors, long elapsedNanos) {
+        this.games = games;
+        this.plies = plies;
+        this.errors = Collections.unmodifiableList(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Get the number of games read
+     * @return The game count, including games that failed
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Get the number of moves that were checked and played
+     * @return The ply count, including the legal moves of games that later failed
+     */
+    public long getPlies() {
+        return plies;
+    }
+
+    /**
+     * Get the number of games that contained a move that could not be played
+     * @return The failed game count
+     */
+    public int getFailedGames() {
+        return errors.size();
+    }
+
+    /**
+     * Get a report for each failed game
+     * @return The reports, in the order of the games in the corpus, e.g. "Game 12, ply 7: Illegal move: e1 e3"
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Get how long the validation took
+     * @return The wall-clock time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedNanos / 1000000;
+    }
+
+    /**
+     * Get the validation throughput in games
+     * @return Games per second of wall-clock time
+     */
+    public long getGamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (games * 1e9 / elapsedNanos);
+    }
+
+    /**
+     * Get the validation throughput in moves
+     * @return Plies per second of wall-clock time
+     */
+    public long getPliesPerSecond() {
+        return elapsedNanos == 0 ? 0 : (long) (plies * 1e9 / elapsedNanos);
+    }
+}
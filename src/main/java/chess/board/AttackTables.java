@@ -0,0 +1,189 @@
+package chess.board;
+
+import chess.Direction;
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+
+/**
+ * Precomputed tables of the squares reachable from every square: knight jumps, King steps, pawn
+ * captures, and the ray of squares in each direction out to the edge of the board.  Most are
+ * available both as arrays of positions and as bitboards.  Built once when the class
+ * is loaded, so move generation only has to read them.
+ *
+ * The arrays returned are shared and must not be modified.
+ */
+public final class AttackTables {
+
+    private static final Position[] NO_SQUARES = new Position[0];
+
+    private static final Position[][] KNIGHT_TARGETS = new Position[GameState.NUM_SQUARES][];
+    private static final Position[][] KING_TARGETS = new Position[GameState.NUM_SQUARES][];
+
+    /**
+     * The same jumps and steps as bitboards, indexed by square
+     */
+    private static final long[] KNIGHT_MASKS = new long[GameState.NUM_SQUARES];
+    private static final long[] KING_MASKS = new long[GameState.NUM_SQUARES];
+
+    /**
+     * The squares a pawn attacks, indexed by player ordinal then square
+     */
+    private static final long[][] PAWN_ATTACK_MASKS = new long[Player.values().length][GameState.NUM_SQUARES];
+
+    /**
+     * The directions each player's pawns capture in, indexed by player ordinal
+     */
+    private static final Direction[][] PAWN_CAPTURES = {
+            {Direction.NorthEast, Direction.NorthWest},
+            {Direction.SouthEast, Direction.SouthWest}
+    };
+
+    /**
+     * The squares along each ray, nearest first, indexed by direction ordinal then square
+     */
+    private static final Position[][][] RAYS = new Position[Direction.values().length][GameState.NUM_SQUARES][];
+
+    /**
+     * The same rays as bitboards, indexed by direction ordinal then square
+     */
+    private static final long[][] RAY_MASKS = new long[Direction.values().length][GameState.NUM_SQUARES];
+
+    /**
+     * Pairs of steps that, taken one after the other, make up each of the knight's jumps
+     */
+    private static final Direction[][] KNIGHT_JUMPS = {
+            {Direction.North, Direction.NorthEast}, {Direction.North, Direction.NorthWest},
+            {Direction.South, Direction.SouthEast}, {Direction.South, Direction.SouthWest},
+            {Direction.East, Direction.NorthEast}, {Direction.East, Direction.SouthEast},
+            {Direction.West, Direction.NorthWest}, {Direction.West, Direction.SouthWest}
+    };
+
+    static {
+        Position[] buffer = new Position[GameState.NUM_SQUARES];
+
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            Position origin = Position.of(index);
+
+            int count = 0;
+            for (Direction[] jump : KNIGHT_JUMPS) {
+                Position step = origin.step(jump[0]);
+                Position target = step == null ? null : step.step(jump[1]);
+                if (target != null) {
+                    buffer[count++] = target;
+                    KNIGHT_MASKS[index] |= 1L << target.getIndex();
+                }
+            }
+            KNIGHT_TARGETS[index] = copyOf(buffer, count);
+
+            count = 0;
+            for (Direction direction : Direction.values()) {
+                Position target = origin.step(direction);
+                if (target != null) {
+                    buffer[count++] = target;
+                    KING_MASKS[index] |= 1L << target.getIndex();
+                }
+            }
+            KING_TARGETS[index] = copyOf(buffer, count);
+
+            for (Player player : Player.values()) {
+                for (Direction direction : PAWN_CAPTURES[player.ordinal()]) {
+                    Position target = origin.step(direction);
+                    if (target != null) {
+                        PAWN_ATTACK_MASKS[player.ordinal()][index] |= 1L << target.getIndex();
+                    }
+                }
+            }
+
+            for (Direction direction : Direction.values()) {
+                count = 0;
+                for (Position current = origin.step(direction); current != null; current = current.step(direction)) {
+                    buffer[count++] = current;
+                    RAY_MASKS[direction.ordinal()][index] |= 1L << current.getIndex();
+                }
+                RAYS[direction.ordinal()][index] = copyOf(buffer, count);
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    /**
+     * Get the squares a knight can jump to
+     * @param origin The square the knight is on
+     * @return The target squares; empty if the origin is not on the board
+     */
+    public static Position[] knightTargets(Position origin) {
+        int index = origin.getIndex();
+        return index < 0 ? NO_SQUARES : KNIGHT_TARGETS[index];
+    }
+
+    /**
+     * Get the squares next to a square
+     * @param origin The square the King is on
+     * @return The neighbouring squares; empty if the origin is not on the board
+     */
+    public static Position[] kingTargets(Position origin) {
+        int index = origin.getIndex();
+        return index < 0 ? NO_SQUARES : KING_TARGETS[index];
+    }
+
+    /**
+     * Get the squares along a ray
+     * @param origin The square the ray starts from (not included)
+     * @param direction The direction of the ray
+     * @return The squares out to the edge of the board, nearest first; empty if the origin is not
+     * on the board
+     */
+    public static Position[] ray(Position origin, Direction direction) {
+        int index = origin.getIndex();
+        return index < 0 ? NO_SQUARES : RAYS[direction.ordinal()][index];
+    }
+
+    /**
+     * Get the squares along a ray as a bitboard
+     * @param origin The square the ray starts from (not included)
+     * @param direction The direction of the ray
+     * @return A bitboard of the squares out to the edge of the board; 0 if the origin is not on
+     * the board
+     */
+    public static long rayMask(Position origin, Direction direction) {
+        int index = origin.getIndex();
+        return index < 0 ? 0 : RAY_MASKS[direction.ordinal()][index];
+    }
+
+    /**
+     * Get the squares a knight can jump to as a bitboard
+     * @param square The index of the knight's square
+     * @return A bitboard of the target squares
+     */
+    public static long knightAttacks(int square) {
+        return KNIGHT_MASKS[square];
+    }
+
+    /**
+     * Get the squares next to a square as a bitboard
+     * @param square The index of the King's square
+     * @return A bitboard of the neighbouring squares
+     */
+    public static long kingAttacks(int square) {
+        return KING_MASKS[square];
+    }
+
+    /**
+     * Get the squares a pawn attacks as a bitboard
+     * @param player The pawn's owner
+     * @param square The index of the pawn's square
+     * @return A bitboard of the two (or, on the edge, one) squares diagonally forward
+     */
+    public static long pawnAttacks(Player player, int square) {
+        return PAWN_ATTACK_MASKS[player.ordinal()][square];
+    }
+
+    private static Position[] copyOf(Position[] buffer, int count) {
+        Position[] copy = new Position[count];
+        System.arraycopy(buffer, 0, copy, 0, count);
+        return copy;
+    }
+}
@@ -0,0 +1,173 @@
+package chess.board;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Board backed by 64-bit occupancy bitboards for every piece type and player, plus a
+ * square-indexed array of the pieces themselves.  Bit N of every bitboard corresponds to
+ * the square whose Position.getIndex() is N.
+ */
+public class BitboardBoard implements Board {
+
+    /**
+     * Room for a full set of pieces without the maps having to grow
+     */
+    private static final int INITIAL_MAP_CAPACITY = 64;
+
+    /**
+     * The piece on each square, indexed by square
+     */
+    private final Piece[] squares;
+
+    /**
+     * The squares occupied by each player, indexed by player ordinal
+     */
+    private final long[] occupancy;
+
+    /**
+     * The squares occupied by each piece type, indexed by player ordinal then type ordinal
+     */
+    private final long[][] bitboards;
+
+    private final Map<Piece, Position> pieceToPositionMap;
+
+    public BitboardBoard() {
+        squares = new Piece[GameState.NUM_SQUARES];
+        occupancy = new long[Player.values().length];
+        bitboards = new long[Player.values().length][PieceType.COUNT];
+        pieceToPositionMap = new HashMap<Piece, Position>(INITIAL_MAP_CAPACITY);
+    }
+
+    @Override
+    public Piece placePiece(Piece piece, Position position) {
+        Position originalPosition = pieceToPositionMap.get(piece);
+        if (originalPosition != null) {
+            int origin = originalPosition.getIndex();
+            if (origin >= 0 && squares[origin] == piece) {
+                clearSquare(origin);
+            }
+        }
+
+        Piece replaced = null;
+        int destination = position.getIndex();
+        if (destination >= 0) {
+            replaced = squares[destination];
+            if (replaced != null) {
+                clearSquare(destination);
+                pieceToPositionMap.put(replaced, Position.OFF_BOARD);
+            }
+
+            fillSquare(piece, destination);
+        }
+
+        pieceToPositionMap.put(piece, position);
+
+        return replaced;
+    }
+
+    @Override
+    public Piece getPieceAt(Position position) {
+        if (position == null) {
+            return null;
+        }
+
+        int index = position.getIndex();
+        return index < 0 ? null : squares[index];
+    }
+
+    @Override
+    public Position getPositionOf(Piece piece) {
+        if (piece == null) {
+            return null;
+        }
+
+        return pieceToPositionMap.get(piece);
+    }
+
+    @Override
+    public Board copyFor(GameState gameState) {
+        BitboardBoard copy = new BitboardBoard();
+        System.arraycopy(occupancy, 0, copy.occupancy, 0, occupancy.length);
+        for (int player = 0; player < bitboards.length; player++) {
+            System.arraycopy(bitboards[player], 0, copy.bitboards[player], 0, PieceType.COUNT);
+        }
+
+        long remaining = getOccupancy();
+        while (remaining != 0) {
+            int index = Long.numberOfTrailingZeros(remaining);
+            Piece piece = squares[index].copyFor(gameState);
+            copy.squares[index] = piece;
+            copy.pieceToPositionMap.put(piece, Position.of(index));
+            remaining &= remaining - 1;
+        }
+
+        return copy;
+    }
+
+    @Override
+    public Set<Piece> getPieces(Player player) {
+        Set<Piece> playerPieces = new HashSet<Piece>();
+        long remaining = occupancy[player.ordinal()];
+        while (remaining != 0) {
+            playerPieces.add(squares[Long.numberOfTrailingZeros(remaining)]);
+            remaining &= remaining - 1;
+        }
+        return playerPieces;
+    }
+
+    @Override
+    public long getOccupancy(Player player) {
+        return occupancy[player.ordinal()];
+    }
+
+    @Override
+    public long getOccupancy() {
+        return occupancy[0] | occupancy[1];
+    }
+
+    /**
+     * Get the squares occupied by one player's pieces of a given type
+     * @param player The player
+     * @param type The piece type
+     * @return A bitboard of matching pieces
+     */
+    public long getBitboard(Player player, PieceType type) {
+        return bitboards[player.ordinal()][type.ordinal()];
+    }
+
+    private void fillSquare(Piece piece, int index) {
+        long bit = 1L << index;
+        int player = piece.getPlayer().ordinal();
+
+        squares[index] = piece;
+        occupancy[player] |= bit;
+
+        PieceType type = piece.getType();
+        if (type != null) {
+            bitboards[player][type.ordinal()] |= bit;
+        }
+    }
+
+    private void clearSquare(int index) {
+        Piece piece = squares[index];
+        long mask = ~(1L << index);
+        int player = piece.getPlayer().ordinal();
+
+        squares[index] = null;
+        occupancy[player] &= mask;
+
+        PieceType type = piece.getType();
+        if (type != null) {
+            bitboards[player][type.ordinal()] &= mask;
+        }
+    }
+}
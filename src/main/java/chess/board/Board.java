@@ -0,0 +1,67 @@
+package chess.board;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+
+import java.util.Set;
+
+/**
+ * The storage behind a GameState: which piece sits on which square.  Implementations only record
+ * placement; all rules about how pieces may move live in the GameState and the pieces themselves.
+ */
+public interface Board {
+
+    /**
+     * Put a piece on a square.  If the piece is already on the board it is lifted from its
+     * previous square first.  Any piece already on the destination is taken off the board.
+     * @param piece The piece to place
+     * @param position The destination square
+     * @return The piece that was replaced, if any
+     */
+    Piece placePiece(Piece piece, Position position);
+
+    /**
+     * Get the piece on a square
+     * @param position The square in question; may be null or OFF_BOARD
+     * @return The piece, or null if the square is empty (or not on the board)
+     */
+    Piece getPieceAt(Position position);
+
+    /**
+     * Find where a piece is
+     * @param piece The piece to look for
+     * @return The piece's position, OFF_BOARD if it was captured, or null if it was never placed
+     */
+    Position getPositionOf(Piece piece);
+
+    /**
+     * Get the pieces a player has on the board
+     * @param player The owning player
+     * @return A new set containing the player's pieces
+     */
+    Set<Piece> getPieces(Player player);
+
+    /**
+     * Get the squares occupied by one player.  Bit N corresponds to the square whose
+     * Position.getIndex() is N.
+     * @param player The player
+     * @return A bitboard of the player's pieces
+     */
+    long getOccupancy(Player player);
+
+    /**
+     * Get the squares occupied by either player
+     * @return A bitboard of all pieces on the board
+     */
+    long getOccupancy();
+
+    /**
+     * Create a board of the same kind as this one holding a copy of each piece on this board,
+     * bound to another game.  Pieces that have been taken off the board are not copied.
+     * @param gameState The game the copied pieces belong to
+     * @return The new board
+     */
+    Board copyFor(GameState gameState);
+}
@@ -0,0 +1,119 @@
+package chess.board;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A Board that keeps pieces in a pair of hash maps keyed by Position and by Piece, plus an
+ * occupancy bitboard per player for the sliding attack lookups.
+ */
+public class HashMapBoard implements Board {
+
+    /**
+     * Room for a full set of pieces without the maps having to grow
+     */
+    private static final int INITIAL_MAP_CAPACITY = 64;
+
+    private final Map<Position, Piece> positionToPieceMap;
+    private final Map<Piece, Position> pieceToPositionMap;
+
+    /**
+     * The squares occupied by each player, indexed by player ordinal
+     */
+    private final long[] occupancy;
+
+    public HashMapBoard() {
+        positionToPieceMap = new HashMap<Position, Piece>(INITIAL_MAP_CAPACITY);
+        pieceToPositionMap = new HashMap<Piece, Position>(INITIAL_MAP_CAPACITY);
+        occupancy = new long[Player.values().length];
+    }
+
+    @Override
+    public Piece placePiece(Piece piece, Position position) {
+        Position originalPosition = getPositionOf(piece);
+        if (originalPosition != null) {
+            Piece removed = positionToPieceMap.remove(originalPosition);
+            if (removed != null) {
+                updateOccupancy(removed, originalPosition, false);
+            }
+        }
+
+        Piece replaced = positionToPieceMap.put(position, piece);
+        if (replaced != null) {
+            pieceToPositionMap.put(replaced, Position.OFF_BOARD);
+            updateOccupancy(replaced, position, false);
+        }
+
+        pieceToPositionMap.put(piece, position);
+        updateOccupancy(piece, position, true);
+
+        return replaced;
+    }
+
+    @Override
+    public Piece getPieceAt(Position position) {
+        return positionToPieceMap.get(position);
+    }
+
+    @Override
+    public Position getPositionOf(Piece piece) {
+        if (piece == null) {
+            return null;
+        }
+
+        return pieceToPositionMap.get(piece);
+    }
+
+    @Override
+    public Board copyFor(GameState gameState) {
+        HashMapBoard copy = new HashMapBoard();
+        for (Map.Entry<Position, Piece> entry : positionToPieceMap.entrySet()) {
+            Piece piece = entry.getValue().copyFor(gameState);
+            copy.positionToPieceMap.put(entry.getKey(), piece);
+            copy.pieceToPositionMap.put(piece, entry.getKey());
+        }
+        System.arraycopy(occupancy, 0, copy.occupancy, 0, occupancy.length);
+        return copy;
+    }
+
+    @Override
+    public Set<Piece> getPieces(Player player) {
+        Set<Piece> playerPieces = new HashSet<Piece>();
+        for (Piece piece : positionToPieceMap.values()) {
+            if (piece.getPlayer().equals(player)) {
+                playerPieces.add(piece);
+            }
+        }
+        return playerPieces;
+    }
+
+    @Override
+    public long getOccupancy(Player player) {
+        return occupancy[player.ordinal()];
+    }
+
+    @Override
+    public long getOccupancy() {
+        return occupancy[0] | occupancy[1];
+    }
+
+    private void updateOccupancy(Piece piece, Position position, boolean occupied) {
+        int index = position.getIndex();
+        if (index < 0) {
+            return;
+        }
+
+        if (occupied) {
+            occupancy[piece.getPlayer().ordinal()] |= 1L << index;
+        } else {
+            occupancy[piece.getPlayer().ordinal()] &= ~(1L << index);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package chess.board;
+
+import chess.GameState;
+
+/**
+ * Constant-time attack lookup for sliding pieces using "magic" bitboards.  For every square, the
+ * pieces that could block a Rook or Bishop are masked out of the occupancy, multiplied by a magic
+ * number and shifted down, giving a perfect hash of the blockers into a table of precomputed attack
+ * sets.  The tables are filled in when the class is loaded.
+ *
+ * The magic numbers were found by a random search over sparse 64-bit numbers.  Searching at class
+ * load takes seconds, so they are listed here instead; each one is checked for collisions as its
+ * table is built.
+ *
+ * Bit N of every bitboard corresponds to the square whose Position.getIndex() is N.
+ */
+public final class Magics {
+
+    private static final int[][] ROOK_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    private static final long[] ROOK_MAGICS = {
+            0x0180042412400080L, 0x1480200140028110L, 0x0c80081002200082L, 0x4080080080100004L,
+            0x2080030800800400L, 0x0100040002010008L, 0xa5000100120000c4L, 0x0200008020420104L,
+            0xc200800080204004L, 0x0000802000400084L, 0x1080808010002000L, 0x0001000821001001L,
+            0x0002000810220004L, 0x0000808002000400L, 0x9602000401080200L, 0x0001000061000082L,
+            0x0400208010400082L, 0x8210004000200040L, 0x0000410015002000L, 0x0101010010002008L,
+            0x1440808004000800L, 0x0001010004000802L, 0x0000040088210250L, 0x2908020014108041L,
+            0x0120400080008020L, 0x3120008280400120L, 0x0108408200201200L, 0x020021010010000aL,
+            0x0080080080800400L, 0x0000040801201040L, 0x0301000100040200L, 0x2040044a00140081L,
+            0x000080c001800027L, 0x1040201000c00048L, 0x0800801000802000L, 0x0004120022004008L,
+            0x0880040080800800L, 0x0046001002000904L, 0x0c00b20104000810L, 0x402004450a000084L,
+            0x00024002800a8022L, 0x001000412004c000L, 0xa0d5200100110040L, 0x8098002010010100L,
+            0x0848010009110004L, 0x5008040002008080L, 0x0f05000200010004L, 0x0100008041220004L,
+            0xa114800821004100L, 0x4640088040200880L, 0x0010100088200080L, 0x5000082100100100L,
+            0x8000080100100500L, 0x2000020080040080L, 0x9005500281084400L, 0x002d014d04288200L,
+            0x4000402010800101L, 0x0042150084420222L, 0x0001001020000841L, 0x148c050008201001L,
+            0x043b001008000423L, 0x0209008814000231L, 0x0000010082100804L, 0x4a00040021108042L
+    };
+
+    private static final long[] BISHOP_MAGICS = {
+            0x1020828208030250L, 0xb020a10400808000L, 0x00108c0088210000L, 0x21220a020000600cL,
+            0x1004050409020200L, 0x281209100a010012L, 0x801402020220180cL, 0x0101002804020801L,
+            0x0000846002022600L, 0x0008500401041020L, 0x0000a20084048020L, 0x0000082040500000L,
+            0x0058020210400504L, 0x4001010403400090L, 0x0081010098144004L, 0x006008240208b400L,
+            0x40a0324002220a40L, 0x1690208822408c08L, 0x8030041808805230L, 0x2000880802044008L,
+            0x080c020600a22200L, 0x1820405e02422040L, 0x0482005041442000L, 0x5005000824020200L,
+            0x00041004041010a0L, 0x8241044008f00403L, 0x0000405004010a00L, 0x0820202008008020L,
+            0x9051001001004000L, 0x0002002004100800L, 0x0024008800421000L, 0x020109020204410cL,
+            0x0048424210c80804L, 0x70190402101010a2L, 0x9004241004210102L, 0x0000020080080080L,
+            0x0180408020120200L, 0x1141610700420040L, 0x0010012209071098L, 0x041809091019c142L,
+            0xc002611008004000L, 0x0000941042080810L, 0x0000414050002040L, 0x0002001144020800L,
+            0x0000040408200400L, 0x8001010931000600L, 0x001004010070c400L, 0x440202020204002cL,
+            0x1062010420050040L, 0x0004420804020040L, 0x044418a605100400L, 0x20440063a1880100L,
+            0x0000f04110410001L, 0x0046840408820000L, 0x4020841010810004L, 0x0810524821002002L,
+            0x8092820490140260L, 0x8644402101101008L, 0x0006020042080490L, 0x0001010040208800L,
+            0x40100002a120410eL, 0x0014802021024085L, 0x2210040910240080L, 0x0340010404004840L
+    };
+
+    private static final long[] ROOK_MASKS = new long[GameState.NUM_SQUARES];
+    private static final int[] ROOK_SHIFTS = new int[GameState.NUM_SQUARES];
+    private static final long[][] ROOK_ATTACKS = new long[GameState.NUM_SQUARES][];
+
+    private static final long[] BISHOP_MASKS = new long[GameState.NUM_SQUARES];
+    private static final int[] BISHOP_SHIFTS = new int[GameState.NUM_SQUARES];
+    private static final long[][] BISHOP_ATTACKS = new long[GameState.NUM_SQUARES][];
+
+    static {
+        for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+            initSquare(square, ROOK_STEPS, ROOK_MASKS, ROOK_MAGICS[square], ROOK_SHIFTS, ROOK_ATTACKS);
+            initSquare(square, BISHOP_STEPS, BISHOP_MASKS, BISHOP_MAGICS[square], BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    private Magics() {
+    }
+
+    /**
+     * Get the squares a Rook attacks
+     * @param square The index of the Rook's square
+     * @param occupied A bitboard of every occupied square
+     * @return A bitboard of the squares along the Rook's rows and columns up to and including the
+     * first piece in each direction, whoever it belongs to
+     */
+    public static long rookAttacks(int square, long occupied) {
+        int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+        return ROOK_ATTACKS[square][index];
+    }
+
+    /**
+     * Get the squares a Bishop attacks
+     * @param square The index of the Bishop's square
+     * @param occupied A bitboard of every occupied square
+     * @return A bitboard of the squares along the Bishop's diagonals up to and including the first
+     * piece in each direction, whoever it belongs to
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+        return BISHOP_ATTACKS[square][index];
+    }
+
+    /**
+     * Get the squares a Queen attacks
+     * @param square The index of the Queen's square
+     * @param occupied A bitboard of every occupied square
+     * @return The union of the Rook and Bishop attacks from the square
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Fill in the attack table for one square
+     * @throws IllegalStateException If two blocker sets with different attacks hash to the same entry
+     */
+    private static void initSquare(int square, int[][] steps, long[] masks, long magic, int[] shifts,
+                                   long[][] attacks) {
+        long mask = relevantBlockers(square, steps);
+        int bits = Long.bitCount(mask);
+        int shift = 64 - bits;
+        long[] table = new long[1 << bits];
+        boolean[] used = new boolean[table.length];
+
+        // Visit every subset of the mask
+        long blockers = 0;
+        do {
+            long reachable = slowAttacks(square, blockers, steps);
+            int index = (int) ((blockers * magic) >>> shift);
+            if (used[index] && table[index] != reachable) {
+                throw new IllegalStateException("Magic number for square " + square + " does not work");
+            }
+            used[index] = true;
+            table[index] = reachable;
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+
+        masks[square] = mask;
+        shifts[square] = shift;
+        attacks[square] = table;
+    }
+
+    /**
+     * Build the mask of squares whose occupancy matters to a slider.  The last square of each ray
+     * is left out, since a piece there cannot hide anything behind it.
+     */
+    private static long relevantBlockers(int square, int[][] steps) {
+        long mask = 0;
+        for (int[] step : steps) {
+            int column = square % 8 + step[0];
+            int row = square / 8 + step[1];
+            while (onBoard(column + step[0], row + step[1])) {
+                mask |= 1L << (row * 8 + column);
+                column += step[0];
+                row += step[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Work out a slider's attacks by walking each ray until it is blocked
+     */
+    private static long slowAttacks(int square, long occupied, int[][] steps) {
+        long attacks = 0;
+        for (int[] step : steps) {
+            int column = square % 8 + step[0];
+            int row = square / 8 + step[1];
+            while (onBoard(column, row)) {
+                long bit = 1L << (row * 8 + column);
+                attacks |= bit;
+                if ((occupied & bit) != 0) {
+                    break;
+                }
+                column += step[0];
+                row += step[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static boolean onBoard(int column, int row) {
+        return column >= 0 && column < 8 && row >= 0 && row < 8;
+    }
+}
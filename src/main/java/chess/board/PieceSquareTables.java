@@ -0,0 +1,211 @@
+package chess.board;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Piece values plus a bonus or penalty for each square a piece can stand on, in centipawns.  The
+ * score of a side is the sum of the entries for its pieces, so, like the Zobrist key, it can be kept
+ * up to date incrementally as pieces move.
+ *
+ * There is one set of tables for the middlegame and one for the endgame; they differ only for the
+ * King, which should shelter early on and come to the centre once the heavy pieces are gone.  An
+ * evaluator blends the two by the game phase (see PHASE_WEIGHTS).  The tables are those of Tomasz
+ * Michniewski's "Simplified Evaluation Function".
+ */
+public final class PieceSquareTables {
+
+    /**
+     * The contribution of each piece type to the game phase, indexed by type ordinal.  A full set
+     * of pieces adds up to TOTAL_PHASE; bare Kings and pawns to 0.
+     */
+    public static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+
+    /**
+     * The game phase of the starting position
+     */
+    public static final int TOTAL_PHASE = 24;
+
+    /**
+     * The value of each piece type, indexed by type ordinal
+     */
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    /**
+     * The square bonuses for White, indexed by type ordinal.  Each table is laid out as the board is
+     * drawn, from a8 across and down to h1.
+     */
+    private static final int[][] BONUSES = {
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    /**
+     * The King's endgame square bonuses for White, laid out as BONUSES
+     */
+    private static final int[] KING_ENDGAME_BONUSES = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    /**
+     * Piece value plus square bonus, indexed by player ordinal, type ordinal and square index
+     */
+    private static final int[][][] MIDDLEGAME =
+            new int[Player.values().length][PieceType.COUNT][GameState.NUM_SQUARES];
+    private static final int[][][] ENDGAME =
+            new int[Player.values().length][PieceType.COUNT][GameState.NUM_SQUARES];
+
+    static {
+        int lastRow = GameState.NUM_SQUARES - GameState.NUM_COLUMNS;
+        for (int type = 0; type < PieceType.COUNT; type++) {
+            int[] endgameBonuses = type == PieceType.King.ordinal() ? KING_ENDGAME_BONUSES : BONUSES[type];
+            for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+                // Flipping the row turns a square index into an index into the drawn table for
+                // White; Black's tables are White's seen from the other side of the board
+                int white = square ^ lastRow;
+                int black = square;
+
+                MIDDLEGAME[Player.White.ordinal()][type][square] = PIECE_VALUES[type] + BONUSES[type][white];
+                MIDDLEGAME[Player.Black.ordinal()][type][square] = PIECE_VALUES[type] + BONUSES[type][black];
+                ENDGAME[Player.White.ordinal()][type][square] = PIECE_VALUES[type] + endgameBonuses[white];
+                ENDGAME[Player.Black.ordinal()][type][square] = PIECE_VALUES[type] + endgameBonuses[black];
+            }
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    /**
+     * Get the value of a piece type, regardless of where it stands
+     * @param type The piece type
+     * @return The value in centipawns
+     */
+    public static int pieceValue(PieceType type) {
+        return PIECE_VALUES[type.ordinal()];
+    }
+
+    /**
+     * Get the middlegame score of a piece standing on a square
+     * @param piece The piece; may be null
+     * @param position The square; may be null or OFF_BOARD
+     * @return The piece's value plus its square bonus, or 0 if there is no piece, the piece is not
+     * a standard type, or the position is not on the board
+     */
+    public static int middlegame(Piece piece, Position position) {
+        return lookup(MIDDLEGAME, piece, position);
+    }
+
+    /**
+     * Get the endgame score of a piece standing on a square
+     * @param piece The piece; may be null
+     * @param position The square; may be null or OFF_BOARD
+     * @return The piece's value plus its square bonus, or 0 if there is no piece, the piece is not
+     * a standard type, or the position is not on the board
+     */
+    public static int endgame(Piece piece, Position position) {
+        return lookup(ENDGAME, piece, position);
+    }
+
+    /**
+     * Compute a player's score from scratch.  GameState keeps the scores up to date as it changes,
+     * so this is only needed to check that bookkeeping.
+     * @param gameState The game
+     * @param player The player to score
+     * @param endgame True for the endgame score; false for the middlegame score
+     * @return The sum of the player's piece values and square bonuses
+     */
+    public static int computeScore(GameState gameState, Player player, boolean endgame) {
+        int score = 0;
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            Position position = Position.of(index);
+            Piece piece = gameState.getPieceAt(position);
+            if (piece != null && piece.getPlayer() == player) {
+                score += endgame ? endgame(piece, position) : middlegame(piece, position);
+            }
+        }
+
+        return score;
+    }
+
+    private static int lookup(int[][][] table, Piece piece, Position position) {
+        if (piece == null || position == null || position.getIndex() < 0) {
+            return 0;
+        }
+
+        PieceType type = piece.getType();
+        if (type == null) {
+            return 0;
+        }
+
+        return table[piece.getPlayer().ordinal()][type.ordinal()][position.getIndex()];
+    }
+}
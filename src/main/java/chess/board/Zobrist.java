@@ -0,0 +1,81 @@
+package chess.board;
+
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing.  The key of a position is the exclusive-or of one key for
+ * every piece on every square, plus SIDE_TO_MOVE when Black is to move, so it can be kept up to
+ * date incrementally as pieces move.  The keys are generated from a fixed seed, so a given
+ * position hashes to the same value in every run.
+ */
+public final class Zobrist {
+
+    /**
+     * Mixed into the key when Black is to move
+     */
+    public static final long SIDE_TO_MOVE;
+
+    /**
+     * One key per player, piece type and square
+     */
+    private static final long[][][] PIECE_KEYS =
+            new long[Player.values().length][PieceType.COUNT][GameState.NUM_SQUARES];
+
+    static {
+        Random random = new Random(0x5eed5eedL);
+        for (long[][] playerKeys : PIECE_KEYS) {
+            for (long[] typeKeys : playerKeys) {
+                for (int square = 0; square < typeKeys.length; square++) {
+                    typeKeys[square] = random.nextLong();
+                }
+            }
+        }
+
+        SIDE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Get the key for a piece standing on a square
+     * @param piece The piece; may be null
+     * @param position The square; may be null or OFF_BOARD
+     * @return The key, or 0 if there is no piece, the piece is not a standard type, or the
+     * position is not on the board
+     */
+    public static long pieceKey(Piece piece, Position position) {
+        if (piece == null || position == null || position.getIndex() < 0) {
+            return 0;
+        }
+
+        PieceType type = piece.getType();
+        if (type == null) {
+            return 0;
+        }
+
+        return PIECE_KEYS[piece.getPlayer().ordinal()][type.ordinal()][position.getIndex()];
+    }
+
+    /**
+     * Compute the key of a game state from scratch.  GameState keeps its key up to date as it
+     * changes, so this is only needed to check that bookkeeping.
+     * @param gameState The game
+     * @return The key
+     */
+    public static long computeKey(GameState gameState) {
+        long key = gameState.getCurrentPlayer() == Player.Black ? SIDE_TO_MOVE : 0;
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            Position position = Position.of(index);
+            key ^= pieceKey(gameState.getPieceAt(position), position);
+        }
+
+        return key;
+    }
+}
@@ -0,0 +1,10 @@
+package chess.pgn;
+
+/**
+ * Indicates PGN text, or a move in standard algebraic notation, that cannot be replayed
+ */
+public class PgnException extends RuntimeException {
+    public PgnException(String msg) {
+        super(msg);
+    }
+}
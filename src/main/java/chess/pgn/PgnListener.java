@@ -0,0 +1,46 @@
+package chess.pgn;
+
+import chess.GameState;
+
+/**
+ * Receives the games a PgnReader replays, one event at a time.  For each game the reader calls
+ * gameStarted, then tag for each header tag and move for each move, and finally either
+ * gameFinished or gameFailed.
+ */
+public interface PgnListener {
+
+    /**
+     * A new game has begun
+     * @param gameNumber The number of the game in the input, counting from 1
+     */
+    void gameStarted(long gameNumber);
+
+    /**
+     * A tag pair from the game's header
+     * @param name The tag name, e.g. "White"
+     * @param value The tag value, without quotes
+     */
+    void tag(String name, String value);
+
+    /**
+     * A move has been played
+     * @param gameState The position after the move.  It belongs to the reader and must not be
+     * changed or kept after this call returns.
+     * @param move The move, packed by Moves
+     */
+    void move(GameState gameState, int move);
+
+    /**
+     * The game's moves were all replayed
+     * @param result The result token: "1-0", "0-1", "1/2-1/2", or "*" if unknown or missing
+     */
+    void gameFinished(String result);
+
+    /**
+     * The game could not be replayed.  No more moves of the game are reported.
+     * @param ply The number of the move that could not be played, counting from 1, or 0 if the game
+     * could not be set up at all
+     * @param message What went wrong
+     */
+    void gameFailed(int ply, String message);
+}
@@ -0,0 +1,380 @@
+package chess.pgn;
+
+import chess.Fen;
+import chess.GameState;
+import chess.InvalidFenException;
+import chess.MoveList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Reads games from PGN text one at a time and replays their moves into a GameState, reporting each
+ * tag, move and result to a PgnListener.  Only the current game is held in memory, so archives far
+ * larger than the heap can be streamed through.
+ *
+ * The text comes either from an InputStream, read through the reader's own buffer, or from a
+ * ByteBuffer such as a memory-mapped file.  Tokens are collected into a reused byte buffer and moves
+ * are resolved into a reused move list; only tag names and values become Strings.
+ *
+ * Comments, recursive variations and numeric annotation glyphs are skipped.  A game that starts from
+ * a "FEN" tag is set up from it.  Games that castle, promote or capture en passant cannot be replayed
+ * by this engine and are reported through gameFailed, after which the reader moves on to the next
+ * game.
+ */
+public class PgnReader {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_TOKEN_LENGTH = 1 << 12;
+    private static final Charset TAG_CHARSET = Charset.forName("UTF-8");
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private final byte[] buffer;
+    private int position = 0;
+    private int limit = 0;
+
+    /**
+     * A byte read too far and put back, or -1 if there is none
+     */
+    private int pushedBack = -1;
+
+    /**
+     * The last byte read from the input, and whether the byte before it ended a line.  A '%'
+     * escape only counts at the start of a line.
+     */
+    private int lastRead = '\n';
+    private boolean atLineStart = true;
+
+    private final byte[] token = new byte[MAX_TOKEN_LENGTH];
+    private int tokenLength;
+
+    private final MoveList moves = new MoveList();
+    private long gameNumber = 0;
+
+    /**
+     * Read PGN from a stream.  The stream is read in large blocks, so it need not be buffered.
+     * @param in The stream
+     */
+    public PgnReader(InputStream in) {
+        this.in = in;
+        this.source = null;
+        this.buffer = new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Read PGN from a buffer, such as a memory-mapped file
+     * @param source The bytes from its position to its limit are read
+     */
+    public PgnReader(ByteBuffer source) {
+        this.in = null;
+        this.source = source;
+        this.buffer = null;
+    }
+
+    /**
+     * Get the number of games started so far
+     * @return The game count
+     */
+    public long getGameCount() {
+        return gameNumber;
+    }
+
+    /**
+     * Read every remaining game
+     * @param listener Where to report the games
+     * @return The number of games read
+     * @throws IOException If the stream cannot be read
+     */
+    public long readAll(PgnListener listener) throws IOException {
+        long count = 0;
+        while (readGame(listener)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Read the next game
+     * @param listener Where to report the game
+     * @return True if a game was read; false if the input is exhausted
+     * @throws IOException If the stream cannot be read
+     */
+    public boolean readGame(PgnListener listener) throws IOException {
+        boolean started = false;
+        boolean inMoves = false;
+        String startFen = null;
+        GameState gameState = null;
+        String error = null;
+        int errorPly = 0;
+        int ply = 0;
+
+        while (true) {
+            int c = skipWhitespace();
+            if (c < 0) {
+                if (started) {
+                    finish(listener, errorPly, error, "*");
+                }
+                return started;
+            }
+
+            if (!started) {
+                started = true;
+                listener.gameStarted(++gameNumber);
+            }
+
+            if (c == '[') {
+                if (inMoves) {
+                    // A new header without a result: the last game simply stopped
+                    pushedBack = c;
+                    finish(listener, errorPly, error, "*");
+                    return true;
+                }
+
+                String name = readTagName();
+                String value = readTagValue();
+                if ("FEN".equals(name)) {
+                    startFen = value;
+                }
+                listener.tag(name, value);
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                readToken(-1);
+            } else if (c == '%' && atLineStart) {
+                skipPast('\n');
+            } else {
+                readToken(c);
+                String result = resultOf(token, tokenLength);
+                if (result != null) {
+                    finish(listener, errorPly, error, result);
+                    return true;
+                }
+
+                int san = skipMoveNumber();
+                if (san == tokenLength) {
+                    continue;
+                }
+                inMoves = true;
+
+                if (error == null) {
+                    try {
+                        if (gameState == null) {
+                            gameState = createGame(startFen);
+                        }
+                        if (san > 0) {
+                            System.arraycopy(token, san, token, 0, tokenLength - san);
+                            tokenLength -= san;
+                        }
+                        int move = San.resolve(gameState, token, tokenLength, moves);
+                        gameState.makeMove(move);
+                        ply++;
+                        listener.move(gameState, move);
+                    } catch (PgnException e) {
+                        error = e.getMessage();
+                        errorPly = ply + 1;
+                    } catch (InvalidFenException e) {
+                        error = e.getMessage();
+                    }
+                }
+            }
+        }
+    }
+
+    private static GameState createGame(String fen) {
+        if (fen != null) {
+            return Fen.parse(fen);
+        }
+
+        GameState gameState = new GameState();
+        gameState.reset();
+        return gameState;
+    }
+
+    private static void finish(PgnListener listener, int errorPly, String error, String result) {
+        if (error == null) {
+            listener.gameFinished(result);
+        } else {
+            listener.gameFailed(errorPly, error);
+        }
+    }
+
+    /**
+     * Recognise a game termination marker
+     * @return The result as a String, or null if the token is not a result
+     */
+    private static String resultOf(byte[] text, int length) {
+        if (length == 1 && text[0] == '*') {
+            return "*";
+        } else if (length == 3 && text[1] == '-') {
+            if (text[0] == '1' && text[2] == '0') {
+                return "1-0";
+            } else if (text[0] == '0' && text[2] == '1') {
+                return "0-1";
+            }
+        } else if (length == 7 && text[0] == '1' && text[1] == '/' && text[2] == '2' && text[3] == '-'
+                && text[4] == '1' && text[5] == '/' && text[6] == '2') {
+            return "1/2-1/2";
+        }
+        return null;
+    }
+
+    /**
+     * Find where the move begins in a token that may start with a move number, as in "12." or "12...e5"
+     * @return The index of the first character after the number and its dots
+     */
+    private int skipMoveNumber() {
+        int i = 0;
+        while (i < tokenLength && token[i] >= '0' && token[i] <= '9') {
+            i++;
+        }
+        if (i == 0) {
+            return 0;
+        }
+        while (i < tokenLength && token[i] == '.') {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Collect a token into the token buffer
+     * @param first The first byte, already read, or -1 to start from the next byte
+     */
+    private void readToken(int first) throws IOException {
+        tokenLength = 0;
+        if (first >= 0) {
+            token[tokenLength++] = (byte) first;
+        }
+
+        while (true) {
+            int c = read();
+            if (c < 0 || isWhitespace(c)) {
+                return;
+            }
+            if (c == '{' || c == '(' || c == ')' || c == '[' || c == ';' || c == '$') {
+                pushedBack = c;
+                return;
+            }
+            // Anything this long is not a move; keep the start of it so it fails as one
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (byte) c;
+            }
+        }
+    }
+
+    private String readTagName() throws IOException {
+        int c = skipWhitespace();
+        tokenLength = 0;
+        while (c >= 0 && !isWhitespace(c) && c != '"' && c != ']') {
+            if (tokenLength < MAX_TOKEN_LENGTH) {
+                token[tokenLength++] = (byte) c;
+            }
+            c = read();
+        }
+        pushedBack = c;
+        return new String(token, 0, tokenLength, TAG_CHARSET);
+    }
+
+    /**
+     * Read a quoted tag value and the closing bracket
+     */
+    private String readTagValue() throws IOException {
+        int c = skipWhitespace();
+        tokenLength = 0;
+        if (c == '"') {
+            c = read();
+            while (c >= 0 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (c >= 0 && tokenLength < MAX_TOKEN_LENGTH) {
+                    token[tokenLength++] = (byte) c;
+                }
+                c = read();
+            }
+        } else {
+            pushedBack = c;
+        }
+
+        String value = new String(token, 0, tokenLength, TAG_CHARSET);
+        skipPast(']');
+        return value;
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            if (c < 0) {
+                return;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && isWhitespace(c));
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * Read the next byte
+     * @return The byte, or -1 at the end of the input
+     */
+    private int read() throws IOException {
+        if (pushedBack >= 0) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+
+        int c;
+        if (source != null) {
+            c = source.hasRemaining() ? source.get() & 0xff : -1;
+        } else {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+            }
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+            c = buffer[position++] & 0xff;
+        }
+
+        if (c >= 0) {
+            atLineStart = lastRead == '\n';
+            lastRead = c;
+        }
+        return c;
+    }
+}
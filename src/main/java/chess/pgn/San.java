@@ -0,0 +1,145 @@
+package chess.pgn;
+
+import chess.GameState;
+import chess.MoveList;
+import chess.Moves;
+import chess.Position;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Resolves moves written in standard algebraic notation ("Nbd7", "exd5", "Qh4+") against the legal
+ * moves of a position.  The engine does not castle, promote or capture en passant, so moves that
+ * need those are rejected.
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Find the legal move a SAN string describes
+     * @param gameState The position the move is played in
+     * @param san The move text
+     * @return The move, packed by Moves
+     * @throws PgnException If the text is not a move, or does not match exactly one legal move
+     */
+    public static int resolve(GameState gameState, CharSequence san) {
+        byte[] text = new byte[san.length()];
+        for (int i = 0; i < text.length; i++) {
+            text[i] = (byte) san.charAt(i);
+        }
+        return resolve(gameState, text, text.length, new MoveList());
+    }
+
+    /**
+     * Find the legal move a SAN string describes, without allocating
+     * @param gameState The position the move is played in
+     * @param text The move text, one ASCII character per byte
+     * @param length The number of bytes of text to use
+     * @param moves A scratch list to generate the legal moves into
+     * @return The move, packed by Moves
+     * @throws PgnException If the text is not a move, or does not match exactly one legal move
+     */
+    static int resolve(GameState gameState, byte[] text, int length, MoveList moves) {
+        // Check and annotation marks say nothing about which move it is
+        int end = length;
+        while (end > 0 && isSuffix(text[end - 1])) {
+            end--;
+        }
+
+        if (end > 0 && (text[0] == 'O' || text[0] == '0')) {
+            throw new PgnException("Castling is not supported: " + describe(text, length));
+        }
+
+        PieceType type = PieceType.Pawn;
+        int start = 0;
+        if (end > 0 && isPieceLetter(text[0])) {
+            type = PieceType.forIdentifier((char) text[0]);
+            start = 1;
+        }
+
+        if (end - start < 2 || !isFile(text[end - 2]) || !isRank(text[end - 1])) {
+            if (indexOf(text, end, (byte) '=') >= 0 || (end > 0 && isPieceLetter(text[end - 1]))) {
+                throw new PgnException("Promotion is not supported: " + describe(text, length));
+            }
+            throw new PgnException("Not a move: " + describe(text, length));
+        }
+        int destination = (text[end - 1] - '1') * GameState.NUM_COLUMNS + (text[end - 2] - GameState.MIN_COLUMN);
+
+        // Anything between the piece letter and the destination narrows down the origin
+        int fromColumn = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            byte c = text[i];
+            if (isFile(c)) {
+                fromColumn = c - GameState.MIN_COLUMN;
+            } else if (isRank(c)) {
+                fromRow = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                throw new PgnException("Not a move: " + describe(text, length));
+            }
+        }
+
+        int found = Moves.NONE;
+        gameState.generateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int origin = Moves.origin(move);
+            if (Moves.destination(move) != destination
+                    || (fromColumn >= 0 && origin % GameState.NUM_COLUMNS != fromColumn)
+                    || (fromRow >= 0 && origin / GameState.NUM_COLUMNS != fromRow)) {
+                continue;
+            }
+
+            Piece piece = gameState.getPieceAt(Position.of(origin));
+            if (piece.getType() != type) {
+                continue;
+            }
+
+            if (found != Moves.NONE) {
+                throw new PgnException("Ambiguous move: " + describe(text, length));
+            }
+            found = move;
+        }
+
+        if (found == Moves.NONE) {
+            throw new PgnException("No legal move matches: " + describe(text, length));
+        }
+
+        return found;
+    }
+
+    private static boolean isSuffix(byte c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isPieceLetter(byte c) {
+        return c == 'K' || c == 'Q' || c == 'R' || c == 'B' || c == 'N';
+    }
+
+    private static boolean isFile(byte c) {
+        return c >= GameState.MIN_COLUMN && c <= GameState.MAX_COLUMN;
+    }
+
+    private static boolean isRank(byte c) {
+        return c >= '1' && c <= '8';
+    }
+
+    private static int indexOf(byte[] text, int length, byte c) {
+        for (int i = 0; i < length; i++) {
+            if (text[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String describe(byte[] text, int length) {
+        StringBuilder san = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            san.append((char) (text[i] & 0xff));
+        }
+        return san.toString();
+    }
+}
@@ -9,7 +9,7 @@ import java.util.*;
  * A partial implementation of the Piece interface that provides logic to examine the piece's relationship
  * to other pieces in the same game.
  */
-public abstract class Piece {
+public abstract class Piece implements Cloneable {
 
     /**
      * The player that owns this piece
@@ -22,16 +22,36 @@ public abstract class Piece {
     GameState state = null;
 
     /**
-     * The set of position generators to use with this piece
+     * The set of position generators to use with this piece.  Built lazily the first time they
+     * are needed after the piece joins a game.
      */
     private Set<PiecePositionGenerator> positionGenerators;
 
+    /**
+     * The type of this piece, resolved lazily from its identifier
+     */
+    private PieceType type;
+
+    /**
+     * Source of hash codes for new pieces.  Updated without synchronization: two pieces sharing a
+     * hash code only costs a little hash table performance.
+     */
+    private static int nextHashCode = 0;
+
+    /**
+     * This piece's hash code.  Pieces are keyed by identity in the boards' maps, and the identity
+     * hash code Object provides is slow to generate the first time it is asked for, which showed
+     * up when setting up many positions from FEN.
+     */
+    private final int hashCode;
+
     /**
      * Build this piece
      * @param player The player who owns this piece
      */
     Piece(Player player) {
         this.player = player;
+        this.hashCode = nextHashCode += 0x61c88647;
     }
 
     /**
@@ -55,8 +75,29 @@ public abstract class Piece {
      * @param gameState The state to use
      */
     public final void setGameState(GameState gameState) {
-        this.state = gameState;
-        positionGenerators = getPositionGenerators();
+        if (state != gameState) {
+            this.state = gameState;
+            positionGenerators = null;
+        }
+    }
+
+    /**
+     * Make a copy of this piece for use in another game.  The copy is made without going through
+     * the constructor, and gets its own position generators bound to the new game.
+     * @param gameState The game the copy belongs to
+     * @return The copy
+     */
+    public final Piece copyFor(GameState gameState) {
+        Piece copy;
+        try {
+            copy = (Piece) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("Pieces are cloneable", e);
+        }
+
+        copy.state = gameState;
+        copy.positionGenerators = null;
+        return copy;
     }
 
     /**
@@ -83,6 +124,18 @@ public abstract class Piece {
         }
     }
 
+    /**
+     * Get the type of this piece
+     * @return The type, or null if this piece is not one of the standard chess pieces
+     */
+    public final PieceType getType() {
+        if (type == null) {
+            type = PieceType.forIdentifier(getIdentifierCharacter());
+        }
+
+        return type;
+    }
+
     /**
      * Convenience method for determining if a given position is a part of the next
      * possible positions for this set.
@@ -106,13 +159,24 @@ public abstract class Piece {
     public Set<Position> getNextPositions(Position origin) {
         Set<Position> positions = new HashSet<Position>();
 
-        for (PiecePositionGenerator generator : positionGenerators) {
+        for (PiecePositionGenerator generator : getBoundGenerators()) {
             positions.addAll(generator.generate(origin));
         }
 
         return positions;
     }
 
+    /**
+     * Get the position generators for this piece, building them for the current game if needed
+     * @return The generators
+     */
+    private Set<PiecePositionGenerator> getBoundGenerators() {
+        if (positionGenerators == null) {
+            positionGenerators = getPositionGenerators();
+        }
+        return positionGenerators;
+    }
+
     /**
      * Sub-classes will want to override this in order to provide the set of
      * PositionGenerators they use to create possible next moves.
@@ -129,6 +193,16 @@ public abstract class Piece {
     protected abstract char getIdentifierCharacter();
 
 
+    @Override
+    public final boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public final int hashCode() {
+        return hashCode;
+    }
+
     @Override
     public String toString() {
         return player + " " + getIdentifier();
@@ -0,0 +1,79 @@
+package chess.pieces;
+
+import chess.Player;
+
+/**
+ * The kinds of pieces that can appear on the board.  The ordinal of each type is stable and
+ * may be used to index tables that are kept per piece type.
+ */
+public enum PieceType {
+    Pawn('p'),
+    Knight('n'),
+    Bishop('b'),
+    Rook('r'),
+    Queen('q'),
+    King('k');
+
+    /**
+     * The number of piece types; convenient for sizing per-type tables
+     */
+    public static final int COUNT = values().length;
+
+    private static final PieceType[] TYPES = values();
+
+    private final char identifier;
+
+    PieceType(char identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Get the lower-case identifying character for this type (as used by White pieces)
+     * @return The identifier
+     */
+    public char getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Create a new piece of this type
+     * @param player The player who owns the piece
+     * @return The piece
+     */
+    public Piece newPiece(Player player) {
+        switch (this) {
+            case Pawn: return new chess.pieces.Pawn(player);
+            case Knight: return new chess.pieces.Knight(player);
+            case Bishop: return new chess.pieces.Bishop(player);
+            case Rook: return new chess.pieces.Rook(player);
+            case Queen: return new chess.pieces.Queen(player);
+            case King: return new chess.pieces.King(player);
+            default: throw new IllegalStateException("Unknown piece type: " + this);
+        }
+    }
+
+    /**
+     * Find the piece type that uses the given identifying character
+     * @param identifier The identifier, in either case
+     * @return The matching type, or null if no standard piece uses the identifier
+     */
+    public static PieceType forIdentifier(char identifier) {
+        char lower = Character.toLowerCase(identifier);
+        for (PieceType type : TYPES) {
+            if (type.identifier == lower) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Find the piece type with the given ordinal without copying the values() array
+     * @param ordinal The ordinal of the type
+     * @return The type
+     */
+    public static PieceType forOrdinal(int ordinal) {
+        return TYPES[ordinal];
+    }
+}
@@ -3,6 +3,11 @@ package chess.pieces.positions;
 import chess.Direction;
 import chess.GameState;
 import chess.Player;
+import chess.Position;
+import chess.board.AttackTables;
+
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * A position generator that will move a limited number of steps
@@ -15,4 +20,18 @@ public class KingPositionGenerator extends StraightLinePositionGenerator {
         setMaxNumSteps(1);
     }
 
+    @Override
+    public Set<Position> generate(Position origin) {
+        Set<Position> positions = new HashSet<Position>();
+
+        // A single step in every direction is exactly the precomputed King table
+        for (Position target : AttackTables.kingTargets(origin)) {
+            if (!isOccupied(target, player)) {
+                positions.add(target);
+            }
+        }
+
+        return positions;
+    }
+
 }
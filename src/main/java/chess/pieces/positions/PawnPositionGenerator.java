@@ -13,6 +13,8 @@ import java.util.Set;
  */
 public class PawnPositionGenerator extends PiecePositionGenerator {
 
+    private static final Direction[] WHITE_ATTACK_DIRECTIONS = {Direction.NorthEast, Direction.NorthWest};
+    private static final Direction[] BLACK_ATTACK_DIRECTIONS = {Direction.SouthEast, Direction.SouthWest};
 
     public PawnPositionGenerator(Player player, GameState gameState) {
         super(player, gameState);
@@ -21,15 +23,13 @@ public class PawnPositionGenerator extends PiecePositionGenerator {
     @Override
     public Set<Position> generate(Position origin) {
         Direction walkDir;
-        Set<Direction> attackDir = new HashSet<Direction>();
+        Direction[] attackDir;
         if (player.equals(Player.White)) {
             walkDir = Direction.North;
-            attackDir.add(Direction.NorthEast);
-            attackDir.add(Direction.NorthWest);
+            attackDir = WHITE_ATTACK_DIRECTIONS;
         } else {
             walkDir = Direction.South;
-            attackDir.add(Direction.SouthEast);
-            attackDir.add(Direction.SouthWest);
+            attackDir = BLACK_ATTACK_DIRECTIONS;
         }
 
         // Black and White players should be considered separately
@@ -4,59 +4,111 @@ import chess.Direction;
 import chess.GameState;
 import chess.Player;
 import chess.Position;
+import chess.board.AttackTables;
+import chess.board.Board;
+import chess.board.Magics;
 import chess.pieces.Piece;
 
-import java.util.*;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
- * A class that can generate a set of positions in a given set of directions.
+ * A class that can generate a set of positions in a given set of directions.  Unlimited slides are
+ * looked up in the magic bitboard attack tables and masked down to this generator's directions;
+ * limited ones walk the precomputed rays.
  */
 public abstract class StraightLinePositionGenerator extends PiecePositionGenerator {
 
-    private final List<Direction> directions;
-    private Integer maxNumSteps;
+    private final Direction[] directions;
+    private int maxNumSteps;
+
+    /**
+     * Whether any of the directions run along rows or columns, and whether any run diagonally
+     */
+    private final boolean straight;
+    private final boolean diagonal;
 
     StraightLinePositionGenerator(Player player, GameState gameState, Direction... directions) {
         super(player, gameState);
-        this.directions = Arrays.asList(directions);
-        maxNumSteps = null;
+        this.directions = directions;
+        maxNumSteps = GameState.NUM_SQUARES;
+
+        boolean anyStraight = false;
+        boolean anyDiagonal = false;
+        for (Direction direction : directions) {
+            if (direction == Direction.North || direction == Direction.East
+                    || direction == Direction.South || direction == Direction.West) {
+                anyStraight = true;
+            } else {
+                anyDiagonal = true;
+            }
+        }
+        straight = anyStraight;
+        diagonal = anyDiagonal;
     }
 
     @Override
     public Set<Position> generate(Position origin) {
         Set<Position> positions = new HashSet<Position>();
 
-        // Generate positions for every direction provided to this generator
+        int index = origin.getIndex();
+        if (index < 0) {
+            return positions;
+        }
+
+        if (maxNumSteps < GameState.NUM_SQUARES) {
+            // Generate positions for every direction provided to this generator
+            for (Direction direction : directions) {
+                generate(origin, direction, positions);
+            }
+            return positions;
+        }
+
+        Board board = state.getBoard();
+        long occupied = board.getOccupancy();
+        long reachable = 0;
+        if (straight) {
+            reachable |= Magics.rookAttacks(index, occupied);
+        }
+        if (diagonal) {
+            reachable |= Magics.bishopAttacks(index, occupied);
+        }
+
+        // Keep only this generator's directions, and never land on our own pieces
+        long directionMask = 0;
         for (Direction direction : directions) {
-            positions.addAll(generate(origin, direction));
+            directionMask |= AttackTables.rayMask(origin, direction);
+        }
+        reachable &= directionMask & ~board.getOccupancy(player);
+
+        while (reachable != 0) {
+            positions.add(Position.of(Long.numberOfTrailingZeros(reachable)));
+            reachable &= reachable - 1;
         }
 
         return positions;
     }
 
     void setMaxNumSteps(Integer maxNumSteps) {
-        this.maxNumSteps = maxNumSteps;
+        this.maxNumSteps = maxNumSteps == null ? GameState.NUM_SQUARES : maxNumSteps;
     }
 
-    Collection<Position> generate(Position origin, Direction direction) {
-        Set<Position> positions = new HashSet<Position>();
-
-        // Take a step in this direction until we are blocked.
-        Position current = origin.step(direction);
-        Piece pieceAtCurrent;
-        int numSteps = 0;
-        while (current != null) {
-            if (maxNumSteps != null && numSteps >= maxNumSteps) {
-                break;
-            }
+    /**
+     * Walk the precomputed ray in one direction until it is blocked
+     * @param origin The square to start from
+     * @param direction The direction to walk in
+     * @param positions The set to add the reachable positions to
+     */
+    void generate(Position origin, Direction direction, Set<Position> positions) {
+        Position[] ray = AttackTables.ray(origin, direction);
+        int numSteps = Math.min(ray.length, maxNumSteps);
 
-            pieceAtCurrent = state.getPieceAt(current);
+        for (int i = 0; i < numSteps; i++) {
+            Position current = ray[i];
+            Piece pieceAtCurrent = state.getPieceAt(current);
             if (pieceAtCurrent == null) {
                 // No piece here; must be a possible position
                 positions.add(current);
-
-                // ... take the next step
-                current = current.step(direction);
             } else {
                 // There is a piece here.  If it's the other player's piece, this is
                 // still a good move
@@ -65,11 +117,8 @@ public abstract class StraightLinePositionGenerator extends PiecePositionGenerat
                 }
 
                 // Either way, we cannot move beyond this step
-                current = null;
+                break;
             }
-            numSteps++;
         }
-
-        return positions;
     }
 }
@@ -0,0 +1,16 @@
+package chess.search;
+
+import chess.GameState;
+
+/**
+ * Scores positions for the search
+ */
+public interface Evaluator {
+
+    /**
+     * Score a position
+     * @param gameState The position to score
+     * @return The score in centipawns, from the point of view of the player to move
+     */
+    int evaluate(GameState gameState);
+}
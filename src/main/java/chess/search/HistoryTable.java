@@ -0,0 +1,69 @@
+package chess.search;
+
+import chess.Moves;
+import chess.Player;
+
+/**
+ * Scores quiet moves by how often, and how deep in the tree, they have caused beta cutoffs, indexed
+ * by player and by the move's origin and destination.  Unlike killer moves, history carries over
+ * between unrelated parts of the tree.  A table belongs to one search thread and is not safe to share.
+ */
+public class HistoryTable {
+
+    /**
+     * Scores never exceed this; when one would, every score is halved
+     */
+    public static final int MAX_SCORE = 1 << 16;
+
+    private static final int NUM_MOVES = 1 << 12;
+
+    private final int[][] scores = new int[Player.values().length][NUM_MOVES];
+
+    /**
+     * Record a quiet move that caused a cutoff
+     * @param player The player who made the move
+     * @param move The move, packed by Moves
+     * @param depth The depth left to search where it caused the cutoff.  Deeper cutoffs save more
+     * work, so they count for more.
+     */
+    public void record(Player player, int move, int depth) {
+        int[] playerScores = scores[player.ordinal()];
+        int index = Moves.squares(move);
+        playerScores[index] += depth * depth;
+        if (playerScores[index] > MAX_SCORE) {
+            age();
+        }
+    }
+
+    /**
+     * Get the score of a move
+     * @param player The player making the move
+     * @param move The move, packed by Moves
+     * @return A score between 0 and MAX_SCORE; higher is better
+     */
+    public int score(Player player, int move) {
+        return scores[player.ordinal()][Moves.squares(move)];
+    }
+
+    /**
+     * Halve every score, so that recent cutoffs count for more than old ones
+     */
+    public void age() {
+        for (int[] playerScores : scores) {
+            for (int i = 0; i < playerScores.length; i++) {
+                playerScores[i] >>= 1;
+            }
+        }
+    }
+
+    /**
+     * Forget every score
+     */
+    public void clear() {
+        for (int[] playerScores : scores) {
+            for (int i = 0; i < playerScores.length; i++) {
+                playerScores[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package chess.search;
+
+import chess.Moves;
+
+/**
+ * Remembers, for each ply, the last two quiet moves that caused a beta cutoff there.  Positions at
+ * the same ply of a search tend to be similar, so a move that refuted one is worth trying early in
+ * its siblings.  A table belongs to one search thread and is not safe to share.
+ */
+public class KillerTable {
+
+    /**
+     * The number of killer moves kept per ply
+     */
+    public static final int SLOTS = 2;
+
+    private final int[][] killers = new int[Search.MAX_PLY][SLOTS];
+
+    /**
+     * Record a move that caused a cutoff.  It becomes the first killer at its ply, and the previous
+     * first killer moves down to second.
+     * @param ply The distance from the root
+     * @param move The move, packed by Moves
+     */
+    public void store(int ply, int move) {
+        int squares = Moves.squares(move);
+        int[] plyKillers = killers[ply];
+        if (plyKillers[0] != squares) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = squares;
+        }
+    }
+
+    /**
+     * Get a killer move
+     * @param ply The distance from the root
+     * @param slot 0 for the most recent killer, 1 for the one before
+     * @return The move's squares, packed by Moves, or Moves.NONE if there is none
+     */
+    public int get(int ply, int slot) {
+        return killers[ply][slot];
+    }
+
+    /**
+     * Forget every killer move, e.g. before searching an unrelated position
+     */
+    public void clear() {
+        for (int[] plyKillers : killers) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                plyKillers[slot] = Moves.NONE;
+            }
+        }
+    }
+}
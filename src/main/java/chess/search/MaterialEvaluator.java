@@ -0,0 +1,38 @@
+package chess.search;
+
+import chess.GameState;
+import chess.PieceList;
+import chess.Player;
+import chess.board.PieceSquareTables;
+import chess.pieces.PieceType;
+
+/**
+ * An evaluator that simply counts material
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(GameState gameState) {
+        Player player = gameState.getCurrentPlayer();
+        return material(gameState, player) - material(gameState, player.other());
+    }
+
+    /**
+     * Get the value of a piece type
+     * @param type The piece type
+     * @return The value in centipawns
+     */
+    public static int valueOf(PieceType type) {
+        return PieceSquareTables.pieceValue(type);
+    }
+
+    private int material(GameState gameState, Player player) {
+        PieceList pieces = gameState.getPieceList();
+        int total = 0;
+        for (int type = 0; type < PieceType.COUNT; type++) {
+            PieceType pieceType = PieceType.forOrdinal(type);
+            total += pieces.size(player, pieceType) * PieceSquareTables.pieceValue(pieceType);
+        }
+        return total;
+    }
+}
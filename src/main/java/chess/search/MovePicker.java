@@ -0,0 +1,186 @@
+package chess.search;
+
+import chess.GameState;
+import chess.MoveList;
+import chess.Moves;
+import chess.Player;
+import chess.Position;
+import chess.board.PieceSquareTables;
+import chess.pieces.Piece;
+import chess.pieces.PieceType;
+
+/**
+ * Hands out the legal moves of a position best first, for searches that want to try the most
+ * promising moves before the rest.  The order is:
+ * <ol>
+ *     <li>the hash move, usually the best move found by an earlier search of the position</li>
+ *     <li>captures, most valuable victim first and, among those, least valuable attacker first
+ *     ("MVV-LVA")</li>
+ *     <li>the killer moves at this ply, if a KillerTable is attached</li>
+ *     <li>the other quiet moves, by HistoryTable score if one is attached</li>
+ *     <li>captures that lose material by GameState.seeScore, least costly first</li>
+ * </ol>
+ *
+ * The moves are scored when the position is set up, but sorted lazily: each call to next() picks the
+ * best of the moves not yet handed out.  A search that cuts off after a move or two never pays for
+ * sorting the rest.  A picker reuses its buffers from one position to the next, so a search keeps one
+ * per ply; like the tables, a picker belongs to a single thread.
+ */
+public class MovePicker {
+
+    private static final int HASH_MOVE_SCORE = Integer.MAX_VALUE;
+    private static final int CAPTURE_SCORE = 1 << 20;
+    private static final int KILLER_SCORE = 1 << 18;
+
+    private final KillerTable killers;
+    private final HistoryTable history;
+
+    private final MoveList moves = new MoveList();
+    private int[] scores = new int[MoveList.DEFAULT_CAPACITY];
+    private int next;
+    private int lastScore;
+
+    /**
+     * Create a picker that orders quiet moves only by the killer and history heuristics given
+     * @param killers The killer moves to try after captures, or null for none
+     * @param history The history scores to order the other quiet moves by, or null to leave them in
+     * generation order
+     */
+    public MovePicker(KillerTable killers, HistoryTable history) {
+        this.killers = killers;
+        this.history = history;
+    }
+
+    /**
+     * Generate and score the legal moves of a position
+     * @param gameState The position
+     * @param hashMove A move to try first, packed by Moves, or Moves.NONE.  It is ignored if it is
+     * not legal here.
+     * @param ply The distance from the root, for looking up killer moves
+     * @return The number of legal moves
+     */
+    public int reset(GameState gameState, int hashMove, int ply) {
+        gameState.generateMoves(moves);
+        return score(gameState, hashMove, ply);
+    }
+
+    /**
+     * Generate and score only the legal captures of a position, for a quiescence search
+     * @param gameState The position
+     * @return The number of legal captures
+     */
+    public int resetCaptures(GameState gameState) {
+        gameState.generateCaptures(moves);
+        return score(gameState, Moves.NONE, 0);
+    }
+
+    private int score(GameState gameState, int hashMove, int ply) {
+        int size = moves.size();
+        if (scores.length < size) {
+            scores = new int[size * 2];
+        }
+
+        Player player = gameState.getCurrentPlayer();
+        int hashSquares = Moves.squares(hashMove);
+        int firstKiller = killers == null ? Moves.NONE : killers.get(ply, 0);
+        int secondKiller = killers == null ? Moves.NONE : killers.get(ply, 1);
+
+        for (int i = 0; i < size; i++) {
+            int move = moves.get(i);
+            int squares = Moves.squares(move);
+            int score;
+            if (squares == hashSquares) {
+                score = HASH_MOVE_SCORE;
+            } else if (Moves.isCapture(move)) {
+                score = scoreCapture(gameState, move);
+            } else if (squares == firstKiller) {
+                score = KILLER_SCORE;
+            } else if (squares == secondKiller) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history == null ? 0 : history.score(player, move);
+            }
+            scores[i] = score;
+        }
+
+        next = 0;
+        return size;
+    }
+
+    /**
+     * Get the best move not yet handed out
+     * @return The move, packed by Moves, or Moves.NONE once every move has been handed out
+     */
+    public int next() {
+        int size = moves.size();
+        if (next >= size) {
+            return Moves.NONE;
+        }
+
+        int best = next;
+        for (int i = next + 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        int move = moves.get(best);
+        lastScore = scores[best];
+        if (best != next) {
+            moves.set(best, moves.get(next));
+            scores[best] = scores[next];
+        }
+        next++;
+
+        return move;
+    }
+
+    /**
+     * Check whether the move last handed out by next() is a capture that loses material.  Every
+     * move handed out after it is a losing capture too.
+     * @return True if static exchange evaluation says the move loses material
+     */
+    public boolean isLosingCapture() {
+        return lastScore < 0;
+    }
+
+    /**
+     * Get the number of moves set up by the last reset
+     * @return The move count
+     */
+    public int size() {
+        return moves.size();
+    }
+
+    /**
+     * Score a capture: by MVV-LVA ahead of the quiet moves if it does not lose material, otherwise by
+     * the material lost, below every quiet move.  Only a capture by a piece worth more than its victim
+     * can lose material, so only those pay for a static exchange evaluation.
+     */
+    private static int scoreCapture(GameState gameState, int move) {
+        PieceType victim = Moves.capturedType(move);
+        PieceType attacker = gameState.getPieceAt(Position.of(Moves.origin(move))).getType();
+        if (attacker != null && victim != null
+                && PieceSquareTables.pieceValue(attacker) > PieceSquareTables.pieceValue(victim)) {
+            int exchange = gameState.seeScore(move);
+            if (exchange < 0) {
+                return exchange;
+            }
+        }
+        return CAPTURE_SCORE + mvvLva(gameState, move);
+    }
+
+    /**
+     * Score a capture: the victim's type dominates, and the attacker's breaks ties
+     * @return A score between 0 and CAPTURE_SCORE; higher is better
+     */
+    private static int mvvLva(GameState gameState, int move) {
+        PieceType victim = Moves.capturedType(move);
+        Piece attacker = gameState.getPieceAt(Position.of(Moves.origin(move)));
+        PieceType attackerType = attacker.getType();
+
+        int victimRank = victim == null ? 0 : victim.ordinal() + 1;
+        int attackerRank = attackerType == null ? PieceType.COUNT : attackerType.ordinal();
+        return victimRank * (PieceType.COUNT + 1) + PieceType.COUNT - attackerRank;
+    }
+}
@@ -0,0 +1,161 @@
+package chess.search;
+
+import chess.GameState;
+
+/**
+ * A Lazy SMP search: several threads run the same iterative-deepening search on their own copies of
+ * the position, cooperating only through a shared, lock-free TranspositionTable.  Each thread's work
+ * fills the table with results that let the others cut off more of the tree.  Half of the helper
+ * threads start one ply deeper than the main thread so that they spread out over the iterations.
+ *
+ * The main thread's result is reported once it finishes, and the helpers are then stopped.
+ */
+public class ParallelSearch {
+
+    /**
+     * The default number of transposition table entries
+     */
+    public static final int DEFAULT_TABLE_SIZE = 1 << 20;
+
+    private final GameState gameState;
+    private final Evaluator evaluator;
+    private final int numThreads;
+    private final TranspositionTable table;
+
+    private int maxDepth = Search.MAX_PLY - 1;
+    private long timeLimitMillis = 0;
+    private long nodeLimit = 0;
+
+    private long[] threadNodes = new long[0];
+
+    /**
+     * Create a search that uses every available processor and counts material
+     * @param gameState The position to search.  It is copied for each thread and never modified.
+     */
+    public ParallelSearch(GameState gameState) {
+        this(gameState, Runtime.getRuntime().availableProcessors(), new MaterialEvaluator(),
+                new TranspositionTable(DEFAULT_TABLE_SIZE));
+    }
+
+    /**
+     * Create a search
+     * @param gameState The position to search.  It is copied for each thread and never modified.
+     * @param numThreads The number of threads to search with
+     * @param evaluator How to score positions.  It is shared by all threads, so must be thread-safe.
+     * @param table The table the threads share
+     */
+    public ParallelSearch(GameState gameState, int numThreads, Evaluator evaluator, TranspositionTable table) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("At least one thread is needed: " + numThreads);
+        }
+
+        this.gameState = gameState;
+        this.numThreads = numThreads;
+        this.evaluator = evaluator;
+        this.table = table;
+    }
+
+    /**
+     * Limit how deep the search goes
+     * @param maxDepth The maximum depth in plies
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1 || maxDepth >= Search.MAX_PLY) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + (Search.MAX_PLY - 1) + ": " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Limit how long the search runs
+     * @param timeLimitMillis The budget in milliseconds, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Limit how many positions the main thread visits.  Helper threads run until it finishes.
+     * @param nodeLimit The budget in nodes, or 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Get the table shared by the threads
+     * @return The transposition table
+     */
+    public TranspositionTable getTranspositionTable() {
+        return table;
+    }
+
+    /**
+     * Get the number of positions each thread visited in the most recent search
+     * @return The node counts, with the main thread first
+     */
+    public long[] getThreadNodes() {
+        return threadNodes.clone();
+    }
+
+    /**
+     * Run the search
+     * @return The main thread's result, with the node count (and so nodes/second) totalled over
+     * all threads
+     * @throws IllegalStateException If the search is interrupted
+     */
+    public SearchResult search() {
+        final Search[] searches = new Search[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            searches[i] = new Search(gameState.copy(), evaluator);
+            searches[i].setMaxDepth(maxDepth);
+            searches[i].setTimeLimit(timeLimitMillis);
+            searches[i].setTranspositionTable(table);
+            if (i > 0 && i % 2 == 0) {
+                searches[i].setStartDepth(2);
+            }
+        }
+        searches[0].setNodeLimit(nodeLimit);
+
+        Thread[] helpers = new Thread[numThreads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            final Search helper = searches[i + 1];
+            helpers[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    helper.search();
+                }
+            }, "search-helper-" + (i + 1));
+            helpers[i].setDaemon(true);
+            helpers[i].start();
+        }
+
+        SearchResult result;
+        try {
+            result = searches[0].search();
+        } finally {
+            for (int i = 1; i < numThreads; i++) {
+                searches[i].stop();
+            }
+        }
+
+        try {
+            for (Thread helper : helpers) {
+                helper.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for search threads", e);
+        }
+
+        threadNodes = new long[numThreads];
+        long totalNodes = 0;
+        for (int i = 0; i < numThreads; i++) {
+            threadNodes[i] = searches[i].getNodes();
+            totalNodes += threadNodes[i];
+        }
+
+        return new SearchResult(result.getPrincipalVariation(), result.getScore(), result.getDepth(),
+                totalNodes, result.getElapsedMillis());
+    }
+}
@@ -0,0 +1,48 @@
+package chess.search;
+
+import chess.GameState;
+import chess.PieceList;
+import chess.Player;
+import chess.board.PieceSquareTables;
+import chess.pieces.PieceType;
+
+/**
+ * An evaluator that counts material and rewards pieces for standing on good squares, blending the
+ * middlegame and endgame piece-square scores by how much material is left.  GameState keeps the
+ * scores and piece counts up to date as moves are made, so evaluating a position reads a handful of
+ * numbers rather than scanning the board.
+ */
+public class PieceSquareEvaluator implements Evaluator {
+
+    @Override
+    public int evaluate(GameState gameState) {
+        Player player = gameState.getCurrentPlayer();
+        Player opponent = player.other();
+
+        int middlegame = gameState.getMiddlegameScore(player) - gameState.getMiddlegameScore(opponent);
+        int endgame = gameState.getEndgameScore(player) - gameState.getEndgameScore(opponent);
+        int phase = phase(gameState);
+
+        return (middlegame * phase + endgame * (PieceSquareTables.TOTAL_PHASE - phase))
+                / PieceSquareTables.TOTAL_PHASE;
+    }
+
+    /**
+     * Measure how far from the endgame a position is
+     * @param gameState The position
+     * @return TOTAL_PHASE with all pieces on the board, falling to 0 as the pieces other than Pawns
+     * and Kings come off.  Extra pieces from promotion do not take it past TOTAL_PHASE.
+     */
+    static int phase(GameState gameState) {
+        PieceList pieces = gameState.getPieceList();
+        int phase = 0;
+        for (int type = 0; type < PieceType.COUNT; type++) {
+            int weight = PieceSquareTables.PHASE_WEIGHTS[type];
+            if (weight != 0) {
+                PieceType pieceType = PieceType.forOrdinal(type);
+                phase += weight * (pieces.size(Player.White, pieceType) + pieces.size(Player.Black, pieceType));
+            }
+        }
+        return Math.min(phase, PieceSquareTables.TOTAL_PHASE);
+    }
+}
@@ -0,0 +1,431 @@
+package chess.search;
+
+import chess.GameState;
+import chess.Move;
+import chess.Moves;
+import chess.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chooses a move by negamax alpha-beta search with iterative deepening.  The search makes and takes
+ * back moves on the GameState it is given, which is returned to its original position when the
+ * search finishes.  Each iteration searches one ply deeper than the last and tries the previous
+ * iteration's principal variation first; the search stops when the depth, time or node budget runs out
+ * and reports the last completed iteration.  If a TranspositionTable is attached, positions already
+ * searched deeply enough are cut off and their best moves are tried first.
+ *
+ * At the end of the main search, a quiescence search plays out captures until the position is quiet,
+ * so that a leaf is never scored in the middle of an exchange.  The player to move may "stand pat" on
+ * the static evaluation instead of capturing, which bounds the quiescence search from below.
+ * Captures that lose material by static exchange evaluation are not searched there, unless the
+ * player is in check.
+ *
+ * Moves are tried in the order a MovePicker hands them out: the hash move, then captures by MVV-LVA,
+ * then killer moves, then the other quiet moves by history score, then captures that lose material.
+ * The killer and history tables are the search's own, so every thread of a parallel search keeps
+ * separate ones.
+ */
+public class Search {
+
+    /**
+     * The deepest the search will ever go
+     */
+    public static final int MAX_PLY = 64;
+
+    /**
+     * The score of delivering checkmate immediately; a mate found n plies in scores MATE - n
+     */
+    public static final int MATE = 100000;
+
+    /**
+     * Scores beyond this in magnitude indicate a forced mate
+     */
+    public static final int MATE_THRESHOLD = MATE - MAX_PLY;
+
+    private static final int INFINITY = MATE + 1;
+
+    /**
+     * How many nodes to visit between looking at the clock
+     */
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final GameState gameState;
+    private final Evaluator evaluator;
+
+    private int startDepth = 1;
+    private int maxDepth = MAX_PLY - 1;
+    private long timeLimitMillis = 0;
+    private long nodeLimit = 0;
+
+    private TranspositionTable table = null;
+    private KillerTable killers = new KillerTable();
+    private HistoryTable history = new HistoryTable();
+
+    /**
+     * A move picker for each ply, created the first time that ply is reached
+     */
+    private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+
+    private long nodes;
+    private long deadline;
+    private boolean stopped;
+
+    /**
+     * Set from another thread to end the search early
+     */
+    private volatile boolean stopRequested;
+
+    /**
+     * The best line found from each ply, built up as the search returns, as packed moves
+     */
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+
+    /**
+     * The principal variation of the last completed iteration, as packed moves
+     */
+    private int[] previousPv = new int[0];
+
+    /**
+     * Create a search that counts material
+     * @param gameState The position to search from
+     */
+    public Search(GameState gameState) {
+        this(gameState, new MaterialEvaluator());
+    }
+
+    /**
+     * Create a search
+     * @param gameState The position to search from
+     * @param evaluator How to score positions at the end of the search
+     */
+    public Search(GameState gameState, Evaluator evaluator) {
+        this.gameState = gameState;
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * Limit how deep the search goes
+     * @param maxDepth The maximum depth in plies
+     */
+    public void setMaxDepth(int maxDepth) {
+        if (maxDepth < 1 || maxDepth >= MAX_PLY) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + (MAX_PLY - 1) + ": " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Start iterative deepening at a depth other than 1.  Helper threads in a parallel search use
+     * this so that they do not all work on the same iteration.
+     * @param startDepth The first depth to search
+     */
+    void setStartDepth(int startDepth) {
+        this.startDepth = Math.min(startDepth, maxDepth);
+    }
+
+    /**
+     * Share results with other searches through a transposition table
+     * @param table The table to use, or null to search without one
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Order quiet moves by a different killer table, e.g. one carried over from an earlier search
+     * @param killers The table to use, or null to search without killer moves
+     */
+    public void setKillerTable(KillerTable killers) {
+        this.killers = killers;
+        Arrays.fill(pickers, null);
+    }
+
+    /**
+     * Order quiet moves by a different history table, e.g. one carried over from an earlier search
+     * @param history The table to use, or null to leave quiet moves in generation order
+     */
+    public void setHistoryTable(HistoryTable history) {
+        this.history = history;
+        Arrays.fill(pickers, null);
+    }
+
+    /**
+     * Ask the search to stop as soon as possible.  May be called from any thread, before or during
+     * the search; a search that has been stopped cannot be run again.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Get the number of positions visited so far by the current or most recent search
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Limit how long the search runs
+     * @param timeLimitMillis The budget in milliseconds, or 0 for no limit
+     */
+    public void setTimeLimit(long timeLimitMillis) {
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    /**
+     * Limit how many positions the search visits
+     * @param nodeLimit The budget in nodes, or 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Run the search
+     * @return The result of the deepest completed iteration.  If not even the first iteration
+     * completes, the best move found so far is reported with a depth of 0.
+     */
+    public SearchResult search() {
+        long start = System.currentTimeMillis();
+        deadline = timeLimitMillis > 0 ? start + timeLimitMillis : Long.MAX_VALUE;
+        nodes = 0;
+        stopped = false;
+        previousPv = new int[0];
+        if (killers != null) {
+            killers.clear();
+        }
+        if (history != null) {
+            history.age();
+        }
+
+        SearchResult result = null;
+        for (int depth = startDepth; depth <= maxDepth; depth++) {
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (stopped) {
+                break;
+            }
+
+            previousPv = Arrays.copyOf(pvTable[0], pvLength[0]);
+            result = new SearchResult(collectPv(), score, depth, nodes, System.currentTimeMillis() - start);
+
+            if (Math.abs(score) > MATE_THRESHOLD || previousPv.length == 0) {
+                // Nothing deeper will change a forced mate, or there are no moves at all
+                break;
+            }
+        }
+
+        if (result == null) {
+            result = new SearchResult(collectPv(), 0, 0, nodes, System.currentTimeMillis() - start);
+        }
+
+        return result;
+    }
+
+    /**
+     * Search the current position
+     * @param depth The number of plies left to search
+     * @param ply The distance from the root
+     * @param alpha The score the player to move is already guaranteed
+     * @param beta The score the opponent is already guaranteed, negated
+     * @return The score from the point of view of the player to move
+     */
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (depth == 0) {
+            return quiesce(ply, alpha, beta);
+        }
+
+        pvLength[ply] = ply;
+        nodes++;
+        checkLimits();
+
+        if (ply == MAX_PLY - 1) {
+            return evaluator.evaluate(gameState);
+        }
+
+        long key = gameState.getZobristKey();
+        int hashMove = Moves.NONE;
+        if (table != null) {
+            long entry = table.probe(key);
+            if (entry != 0) {
+                hashMove = TranspositionTable.packedMoveOf(entry);
+                if (ply > 0 && TranspositionTable.depthOf(entry) >= depth) {
+                    int score = TranspositionTable.scoreFromTable(TranspositionTable.scoreOf(entry), ply);
+                    int bound = TranspositionTable.boundOf(entry);
+                    if (bound == TranspositionTable.EXACT
+                            || (bound == TranspositionTable.LOWER_BOUND && score >= beta)
+                            || (bound == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+                        return score;
+                    }
+                }
+            }
+        }
+
+        if (hashMove == Moves.NONE && ply < previousPv.length) {
+            hashMove = previousPv[ply];
+        }
+
+        MovePicker picker = getPicker(ply);
+        if (picker.reset(gameState, hashMove, ply) == 0) {
+            // Checkmate or stalemate
+            return gameState.isInCheck() ? -MATE + ply : 0;
+        }
+
+        Player player = gameState.getCurrentPlayer();
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = Moves.NONE;
+        for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+            gameState.makeMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            gameState.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!Moves.isCapture(move)) {
+                            recordCutoff(player, move, depth, ply);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        if (table != null) {
+            int bound;
+            if (best <= originalAlpha) {
+                bound = TranspositionTable.UPPER_BOUND;
+            } else if (best >= beta) {
+                bound = TranspositionTable.LOWER_BOUND;
+            } else {
+                bound = TranspositionTable.EXACT;
+            }
+            table.store(key, bestMove, bound, depth, TranspositionTable.scoreToTable(best, ply));
+        }
+
+        return best;
+    }
+
+    /**
+     * Search only captures that do not lose material from the current position, or every move if
+     * the player to move is in check, since standing pat is then not an option
+     * @param ply The distance from the root
+     * @param alpha The score the player to move is already guaranteed
+     * @param beta The score the opponent is already guaranteed, negated
+     * @return The score from the point of view of the player to move
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        nodes++;
+        checkLimits();
+
+        if (ply == MAX_PLY - 1) {
+            return evaluator.evaluate(gameState);
+        }
+
+        MovePicker picker = getPicker(ply);
+        boolean inCheck = gameState.isInCheck();
+        int best;
+        if (inCheck) {
+            if (picker.reset(gameState, Moves.NONE, ply) == 0) {
+                return -MATE + ply;
+            }
+            best = -INFINITY;
+        } else {
+            best = evaluator.evaluate(gameState);
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+            picker.resetCaptures(gameState);
+        }
+
+        for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+            if (!inCheck && picker.isLosingCapture()) {
+                // The picker hands out losing captures last, so the rest lose material too
+                break;
+            }
+
+            gameState.makeMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            gameState.unmakeMove();
+
+            if (stopped) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Remember a quiet move that refuted the position, so that it is tried early elsewhere
+     */
+    private void recordCutoff(Player player, int move, int depth, int ply) {
+        if (killers != null) {
+            killers.store(ply, move);
+        }
+        if (history != null) {
+            history.record(player, move, depth);
+        }
+    }
+
+    /**
+     * Get the move picker for a ply, creating it the first time that ply is reached
+     * @param ply The distance from the root
+     * @return The picker
+     */
+    private MovePicker getPicker(int ply) {
+        if (pickers[ply] == null) {
+            pickers[ply] = new MovePicker(killers, history);
+        }
+        return pickers[ply];
+    }
+
+    private void updatePv(int ply, int move) {
+        pvTable[ply][ply] = move;
+        for (int i = ply + 1; i < pvLength[ply + 1]; i++) {
+            pvTable[ply][i] = pvTable[ply + 1][i];
+        }
+        pvLength[ply] = Math.max(ply + 1, pvLength[ply + 1]);
+    }
+
+    private List<Move> collectPv() {
+        List<Move> pv = new ArrayList<Move>(pvLength[0]);
+        for (int i = 0; i < pvLength[0]; i++) {
+            pv.add(Moves.toMove(pvTable[0][i]));
+        }
+        return pv;
+    }
+
+    private void checkLimits() {
+        if (stopRequested || (nodeLimit > 0 && nodes >= nodeLimit)) {
+            stopped = true;
+        } else if (nodes % TIME_CHECK_INTERVAL == 0 && System.currentTimeMillis() >= deadline) {
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package chess.search;
+
+import chess.Move;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a search: the move to play and the line the search expects to follow
+ */
+public class SearchResult {
+
+    private final List<Move> principalVariation;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    SearchResult(List<Move> principalVariation, int score, int depth, long nodes, long elapsedMillis) {
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Get the move the search recommends
+     * @return The best move, or null if the player to move has no legal moves
+     */
+    public Move getBestMove() {
+        return principalVariation.isEmpty() ? null : principalVariation.get(0);
+    }
+
+    /**
+     * Get the sequence of moves the search expects both players to make
+     * @return The principal variation, starting with the best move
+     */
+    public List<Move> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    /**
+     * Get the score of the position
+     * @return The score in centipawns from the point of view of the player to move.  Scores beyond
+     * Search.MATE_THRESHOLD in magnitude indicate a forced mate.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Get the deepest iteration that was completed
+     * @return The depth in plies
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Get the number of positions visited
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time taken by the search
+     * @return The elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Get the search speed
+     * @return The number of nodes visited per second
+     */
+    public long getNodesPerSecond() {
+        return elapsedMillis == 0 ? nodes * 1000 : nodes * 1000 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "depth " + depth + " score " + score + " nodes " + nodes + " nps " + getNodesPerSecond()
+                + " pv " + principalVariation;
+    }
+}
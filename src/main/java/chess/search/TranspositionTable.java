@@ -0,0 +1,165 @@
+package chess.search;
+
+import chess.Moves;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A transposition table for the search that can be shared by any number of threads without locking.
+ *
+ * Each entry is two longs: the entry's data, and the position's Zobrist key exclusive-or'd with that
+ * data.  A reader recomputes the key from the pair, so an entry that was torn by two threads writing
+ * at once simply fails to match and is treated as a miss.
+ *
+ * The data packs the best move (its origin and destination squares, laid out as by Moves), the bound
+ * type, the search depth and the score.
+ */
+public class TranspositionTable {
+
+    /**
+     * The stored score is exact
+     */
+    static final int EXACT = 1;
+
+    /**
+     * The stored score is a lower bound: the search failed high
+     */
+    static final int LOWER_BOUND = 2;
+
+    /**
+     * The stored score is an upper bound: the search failed low
+     */
+    static final int UPPER_BOUND = 3;
+
+    private static final int MOVE_BITS = 12;
+    private static final int BOUND_SHIFT = MOVE_BITS;
+    private static final int DEPTH_SHIFT = BOUND_SHIFT + 2;
+    private static final int SCORE_SHIFT = 32;
+
+    private final AtomicLongArray entries;
+    private final int mask;
+
+    /**
+     * Create a table
+     * @param capacity The number of entries; rounded up to a power of two
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Table capacity must be positive: " + capacity);
+        }
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(1, size);
+        entries = new AtomicLongArray(size * 2);
+        mask = size - 1;
+    }
+
+    /**
+     * Get the number of entries in the table
+     * @return The capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Forget every entry.  This must not be called while a search is using the table.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * Look up a position
+     * @param key The Zobrist key of the position
+     * @return The packed entry data, or 0 if the position is not in the table
+     */
+    long probe(long key) {
+        int index = ((int) key & mask) * 2;
+        long data = entries.get(index + 1);
+        if (data != 0 && (entries.get(index) ^ data) == key) {
+            return data;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Record the result of searching a position.  An existing entry for a different position is
+     * always replaced; an entry for the same position is only replaced by a search at least as deep.
+     * @param key The Zobrist key of the position
+     * @param move The best move found, packed by Moves, or Moves.NONE
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param depth The depth that was searched
+     * @param score The score, already adjusted with scoreToTable
+     */
+    void store(long key, int move, int bound, int depth, int score) {
+        int index = ((int) key & mask) * 2;
+        long existing = entries.get(index + 1);
+        if (existing != 0 && (entries.get(index) ^ existing) == key && depth < depthOf(existing)) {
+            return;
+        }
+
+        long data = Moves.squares(move)
+                | (long) bound << BOUND_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                | (long) score << SCORE_SHIFT;
+
+        entries.lazySet(index, key ^ data);
+        entries.lazySet(index + 1, data);
+    }
+
+    /**
+     * Get the best move of an entry without allocating
+     * @param data The packed entry data
+     * @return The move's squares, packed by Moves, or Moves.NONE if no move was stored
+     */
+    static int packedMoveOf(long data) {
+        return (int) (data & ((1 << MOVE_BITS) - 1));
+    }
+
+    static int boundOf(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    static int depthOf(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xff;
+    }
+
+    static int scoreOf(long data) {
+        return (int) (data >> SCORE_SHIFT);
+    }
+
+    /**
+     * Convert a score to the form stored in the table.  Mate scores are stored relative to the
+     * position rather than the root, so they stay correct when the position is reached at another ply.
+     * @param score The score relative to the root
+     * @param ply The distance of the position from the root
+     * @return The score to store
+     */
+    static int scoreToTable(int score, int ply) {
+        if (score > Search.MATE_THRESHOLD) {
+            return score + ply;
+        } else if (score < -Search.MATE_THRESHOLD) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Convert a stored score back to one relative to the root
+     * @param score The stored score
+     * @param ply The distance of the position from the root
+     * @return The score relative to the root
+     */
+    static int scoreFromTable(int score, int ply) {
+        if (score > Search.MATE_THRESHOLD) {
+            return score - ply;
+        } else if (score < -Search.MATE_THRESHOLD) {
+            return score + ply;
+        }
+        return score;
+    }
+}
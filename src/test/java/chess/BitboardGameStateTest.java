@@ -0,0 +1,14 @@
+package chess;
+
+import chess.board.BitboardBoard;
+
+/**
+ * Run the GameState tests against a game backed by a BitboardBoard
+ */
+public class BitboardGameStateTest extends GameStateTest {
+
+    @Override
+    protected GameState createGameState() {
+        return new GameState(new BitboardBoard());
+    }
+}
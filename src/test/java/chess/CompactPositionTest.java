@@ -0,0 +1,116 @@
+package chess;
+
+import chess.board.BitboardBoard;
+import chess.pieces.Knight;
+import chess.pieces.Rook;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the fixed-size binary position format
+ */
+public class CompactPositionTest {
+
+    private static final String[] POSITIONS = {
+            Fen.STARTING_POSITION,
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b Kq e3 12 40",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 99 65535",
+            "4k3/8/8/8/8/8/8/4K3 b - - 0 1"
+    };
+
+    @Test
+    public void testRoundTrip() {
+        for (String fen : POSITIONS) {
+            GameState gameState = Fen.parse(fen);
+            byte[] bytes = CompactPosition.encode(gameState);
+            assertEquals("Wrong size", CompactPosition.SIZE, bytes.length);
+
+            GameState decoded = CompactPosition.decode(bytes);
+            assertEquals("Position should survive encoding", fen, Fen.toFen(decoded));
+            assertEquals("Zobrist key should survive encoding", gameState.getZobristKey(), decoded.getZobristKey());
+        }
+    }
+
+    @Test
+    public void testSequentialBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(POSITIONS.length * CompactPosition.SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (String fen : POSITIONS) {
+            CompactPosition.encode(Fen.parse(fen), buffer);
+        }
+        assertFalse("Buffer should be full", buffer.hasRemaining());
+
+        buffer.flip();
+        for (String fen : POSITIONS) {
+            GameState decoded = CompactPosition.decode(buffer, new BitboardBoard());
+            assertEquals("Wrong position read back", fen, Fen.toFen(decoded));
+            assertTrue("Board should be used", decoded.getBoard() instanceof BitboardBoard);
+        }
+        assertFalse("Buffer should be consumed", buffer.hasRemaining());
+    }
+
+    @Test
+    public void testDecodedGameIsPlayable() {
+        GameState gameState = CompactPosition.decode(CompactPosition.encode(Fen.parse(Fen.STARTING_POSITION)));
+        assertEquals("Start position should have 20 moves", 20, gameState.generateMoves(new MoveList()));
+        assertEquals("Perft should match", 8902, new Perft(gameState).perft(3));
+    }
+
+    @Test
+    public void testTooManyPieces() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        gameState.placePiece(new Knight(Player.White), Position.of(GameState.NUM_COLUMNS * 3));
+        try {
+            CompactPosition.encode(gameState);
+            fail("33 pieces should not fit");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEncodeFailureWritesNothing() {
+        GameState gameState = Fen.parse("4k3/8/8/8/8/8/8/4K3 w - - 0 1");
+        gameState.setHalfmoveClock(256);
+        ByteBuffer buffer = ByteBuffer.allocate(CompactPosition.SIZE);
+        try {
+            CompactPosition.encode(gameState, buffer);
+            fail("Halfmove clock should be too large");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Nothing should be written", 0, buffer.position());
+        }
+    }
+
+    @Test
+    public void testBadBytes() {
+        byte[] bytes = CompactPosition.encode(Fen.parse(Fen.STARTING_POSITION));
+        bytes[8] = 0x7;
+        try {
+            CompactPosition.decode(bytes);
+            fail("Piece code 7 is not a piece");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+
+        try {
+            CompactPosition.decode(new byte[CompactPosition.SIZE - 1]);
+            fail("Short input should be rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPieceCodes() {
+        GameState gameState = Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        byte[] bytes = CompactPosition.encode(gameState);
+        assertEquals("Occupancy should be a1, e1 and e8", (1L << 0) | (1L << 4) | (1L << 60),
+                ByteBuffer.wrap(bytes).getLong());
+        assertEquals("White rook then White king", 0x53, bytes[8] & 0xff);
+        assertEquals("Black king", 0x0d, bytes[9] & 0xff);
+        assertEquals("Rook should decode", Rook.class, CompactPosition.decode(bytes).getPieceAt("a1").getClass());
+    }
+}
@@ -0,0 +1,92 @@
+package chess;
+
+import chess.board.BitboardBoard;
+import chess.pieces.PieceType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for reading and writing FEN
+ */
+public class FenTest {
+
+    @Test
+    public void testStartingPosition() {
+        GameState parsed = Fen.parse(Fen.STARTING_POSITION);
+        GameState reset = new GameState();
+        reset.reset();
+
+        assertEquals("Parsed and reset positions should match", reset.getZobristKey(), parsed.getZobristKey());
+        assertEquals("Wrong piece on e1", PieceType.King, parsed.getPieceAt("e1").getType());
+        assertEquals("e1 should hold White's King", Player.White, parsed.getPieceAt("e1").getPlayer());
+        assertEquals("Wrong castling rights", GameState.ALL_CASTLING, parsed.getCastlingRights());
+        assertEquals("Reset position should write the standard FEN", Fen.STARTING_POSITION, Fen.toFen(reset));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        String[] positions = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 37"
+        };
+
+        for (String fen : positions) {
+            assertEquals("FEN should survive a round trip", fen, Fen.toFen(Fen.parse(fen)));
+            assertEquals("FEN should survive a round trip on bitboards", fen, Fen.toFen(Fen.parse(fen, new BitboardBoard())));
+        }
+    }
+
+    @Test
+    public void testMovesUpdateState() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        gameState.makeMove("e2 e4");
+        assertEquals("Wrong FEN after 1. e4",
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", Fen.toFen(gameState));
+
+        gameState.makeMove("g8 f6");
+        gameState.makeMove("e1 e2");
+        assertEquals("Wrong FEN after the King moves",
+                "rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2", Fen.toFen(gameState));
+
+        gameState.unmakeMove();
+        gameState.unmakeMove();
+        gameState.unmakeMove();
+        assertEquals("Taking moves back should restore the state", Fen.STARTING_POSITION, Fen.toFen(gameState));
+    }
+
+    @Test
+    public void testClocksAreOptional() {
+        GameState gameState = Fen.parse("4k3/8/8/8/8/8/8/4K3 b - -");
+
+        assertEquals("Black should be to move", Player.Black, gameState.getCurrentPlayer());
+        assertEquals("Halfmove clock should default to 0", 0, gameState.getHalfmoveClock());
+        assertEquals("Fullmove number should default to 1", 1, gameState.getFullmoveNumber());
+    }
+
+    @Test
+    public void testInvalidFen() {
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq z9 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - zero 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra"
+        };
+
+        for (String fen : invalid) {
+            try {
+                Fen.parse(fen);
+                fail("Should not parse: " + fen);
+            } catch (InvalidFenException e) {
+                // expected
+            }
+        }
+    }
+}
@@ -1,12 +1,12 @@
 package chess;
 
+import chess.board.PieceSquareTables;
+import chess.board.Zobrist;
 import chess.pieces.*;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -19,7 +19,15 @@ public class GameStateTest {
 
     @Before
     public void setUp() {
-        gameState = new GameState();
+        gameState = createGameState();
+    }
+
+    /**
+     * Create the game state under test.  Sub-classes override this to exercise other boards.
+     * @return An empty game state
+     */
+    protected GameState createGameState() {
+        return new GameState();
     }
 
     @Test
@@ -211,6 +219,47 @@ public class GameStateTest {
         assertFalse("The game should not be over", gameState.isGameOver());
     }
 
+    @Test
+    public void testCheckmateResult() {
+        gameState.reset();
+        makeMoves("f2 f3", "e7 e5", "g2 g4", "d8 h4");
+
+        assertFalse("White has no legal move", gameState.hasAnyLegalMove());
+        assertTrue("The game is over", gameState.isGameOver());
+        assertEquals("White has been checkmated", GameResult.Checkmate, gameState.getResult());
+    }
+
+    @Test
+    public void testStalemateResult() {
+        gameState.placePiece(new King(Player.White), "f7");
+        gameState.placePiece(new Queen(Player.White), "g6");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.toggleCurrentPlayer();
+
+        assertFalse("Black should not be in check", gameState.isInCheck());
+        assertFalse("Black has no legal move", gameState.hasAnyLegalMove());
+        assertTrue("Stalemate ends the game", gameState.isGameOver());
+        assertEquals("The game is drawn", GameResult.Stalemate, gameState.getResult());
+        assertFalse("A draw is over", gameState.getResult() == GameResult.InProgress);
+    }
+
+    @Test
+    public void testHasAnyLegalMoveMatchesGeneratedMoves() {
+        gameState.reset();
+        assertEquals("The game has just started", GameResult.InProgress, gameState.getResult());
+
+        Random random = new Random(2468L);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 200; ply++) {
+            int size = gameState.generateMoves(moves);
+            assertEquals("Should agree with the generated moves at ply " + ply, size > 0, gameState.hasAnyLegalMove());
+            if (size == 0) {
+                break;
+            }
+            gameState.makeMove(moves.get(random.nextInt(size)));
+        }
+    }
+
     @Test
     public void aggressiveQueen() {
         gameState.reset();
@@ -226,9 +275,488 @@ public class GameStateTest {
         assertFalse("The game is not over (King can take Queen)", gameState.isGameOver());
     }
 
+    @Test
+    public void testIsAttackedBy() {
+        gameState.placePiece(new Knight(Player.White), "b1");
+        gameState.placePiece(new Pawn(Player.White), "e4");
+        gameState.placePiece(new Pawn(Player.Black), "e5");
+        gameState.placePiece(new Rook(Player.Black), "h1");
+        gameState.placePiece(new Bishop(Player.Black), "a8");
+
+        assertTrue("The knight covers c3", gameState.isAttackedBy(new Position("c3"), Player.White));
+        assertTrue("The White pawn covers d5", gameState.isAttackedBy(new Position("d5"), Player.White));
+        assertFalse("Pawns do not attack straight ahead", gameState.isAttackedBy(new Position("e5"), Player.White));
+        assertTrue("The Black pawn covers f4", gameState.isAttackedBy(new Position("f4"), Player.Black));
+        assertFalse("Black pawns do not attack backward", gameState.isAttackedBy(new Position("f6"), Player.Black));
+        assertTrue("The rook covers c1 along the row", gameState.isAttackedBy(new Position("c1"), Player.Black));
+        assertTrue("The rook covers the knight it is looking at", gameState.isAttackedBy(new Position("b1"), Player.Black));
+        assertFalse("The knight blocks the rook from a1", gameState.isAttackedBy(new Position("a1"), Player.Black));
+        assertTrue("The bishop covers d5", gameState.isAttackedBy(new Position("d5"), Player.Black));
+        assertFalse("The pawn on e4 blocks the bishop from f3", gameState.isAttackedBy(new Position("f3"), Player.Black));
+    }
+
+    @Test
+    public void testCheckAfterKingIsCaptured() {
+        King whiteKing = new King(Player.White);
+        gameState.placePiece(whiteKing, "e1");
+        gameState.placePiece(new King(Player.Black), "e8");
+        gameState.placePiece(new Rook(Player.Black), "e1");
+
+        assertFalse("A player without a King cannot be in check", gameState.isInCheck());
+        assertEquals("The King should be off the board", 0, gameState.getPiecesOnBoard(Player.White).size());
+    }
+
+    @Test
+    public void testZobristKeyIsIncremental() {
+        gameState.reset();
+        long initialKey = gameState.getZobristKey();
+        assertEquals("Initial key should match a full computation", Zobrist.computeKey(gameState), initialKey);
+
+        makeMoves("e2 e4", "d7 d5", "e4 d5");
+        assertEquals("Key should match a full computation after a capture",
+                Zobrist.computeKey(gameState), gameState.getZobristKey());
+        assertFalse("Different positions should have different keys", initialKey == gameState.getZobristKey());
+    }
+
+    @Test
+    public void testZobristKeyTransposition() {
+        gameState.reset();
+        makeMoves("g1 f3", "g8 f6", "b1 c3", "b8 c6");
+        long key = gameState.getZobristKey();
+
+        GameState other = createGameState();
+        other.reset();
+        makeMoves(other, "b1 c3", "b8 c6", "g1 f3", "g8 f6");
+
+        assertEquals("Transposed move orders should reach the same key", key, other.getZobristKey());
+
+        other.toggleCurrentPlayer();
+        assertFalse("The player to move is part of the key", key == other.getZobristKey());
+    }
+
+    @Test
+    public void testZobristKeyAfterIllegalMove() {
+        gameState.placePiece(new King(Player.White), "a2");
+        gameState.placePiece(new Pawn(Player.White), "b2");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "h2");
+        long key = gameState.getZobristKey();
+
+        assertFalse("The pawn is pinned", gameState.makeMove("b2 b3"));
+        assertEquals("A rejected move should leave the key alone", key, gameState.getZobristKey());
+    }
+
+    @Test
+    public void testCopy() {
+        gameState.reset();
+        makeMoves("e2 e4", "e7 e5");
+
+        GameState copy = gameState.copy();
+        assertEquals("The copy should be in the same position", gameState.getZobristKey(), copy.getZobristKey());
+        assertNotSame("The copy should have its own pieces", gameState.getPieceAt("e4"), copy.getPieceAt("e4"));
+
+        makeMoves(copy, "g1 f3");
+        assertNull("Moves in the copy should not affect the original", gameState.getPieceAt("f3"));
+        assertEquals("The original should still be White's move", Player.White, gameState.getCurrentPlayer());
+    }
+
+    @Test
+    public void testCopyKeepsCheck() {
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "a5");
+
+        GameState copy = gameState.copy();
+        assertTrue("The copy should know where the King is", copy.isInCheck());
+        assertEquals("The copied King can only step off the file", 2, copy.findValidMovesFor(copy.getPieceAt("a1")).size());
+        assertSame("Copied pieces belong to the copy", copy, copy.getPieceAt("a5").getGameState());
+    }
+
+    @Test
+    public void testPinnedPieceStaysOnLine() {
+        gameState.placePiece(new King(Player.White), "e1");
+        Rook whiteRook = new Rook(Player.White);
+        gameState.placePiece(whiteRook, "e4");
+        Bishop whiteBishop = new Bishop(Player.White);
+        gameState.placePiece(whiteBishop, "d2");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Queen(Player.Black), "e7");
+        gameState.placePiece(new Bishop(Player.Black), "a5");
+
+        Set<Move> rookMoves = gameState.findValidMovesFor(whiteRook);
+        assertEquals("The pinned rook can only move along the e file", 5, rookMoves.size());
+        assertTrue("The rook can capture the pinning queen", rookMoves.contains(new Move("e4 e7")));
+        assertFalse("The rook cannot leave the e file", rookMoves.contains(new Move("e4 d4")));
+
+        Set<Move> bishopMoves = gameState.findValidMovesFor(whiteBishop);
+        assertEquals("The pinned bishop can only move toward its pinner", 3, bishopMoves.size());
+        assertTrue("The bishop can capture the pinning bishop", bishopMoves.contains(new Move("d2 a5")));
+    }
+
+    @Test
+    public void testCheckEvasions() {
+        gameState.placePiece(new King(Player.White), "a1");
+        Rook whiteRook = new Rook(Player.White);
+        gameState.placePiece(whiteRook, "c4");
+        Knight whiteKnight = new Knight(Player.White);
+        gameState.placePiece(whiteKnight, "g6");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "h1");
+
+        Set<Move> rookMoves = gameState.findValidMovesFor(whiteRook);
+        assertEquals("The rook can only block the check", 1, rookMoves.size());
+        assertTrue("The rook should block on c1", rookMoves.contains(new Move("c4 c1")));
+
+        assertEquals("The knight cannot help", 0, gameState.findValidMovesFor(whiteKnight).size());
+        assertFalse("The King cannot retreat along the checking row",
+                gameState.findValidMovesFor(gameState.getPieceAt("a1")).contains(new Move("a1 b1")));
+    }
+
+    @Test
+    public void testLegalMovesMatchMakingEachMove() {
+        gameState.reset();
+        Random random = new Random(20141022L);
+
+        for (int ply = 0; ply < 80 && !gameState.isGameOver(); ply++) {
+            List<Move> legal = new ArrayList<Move>();
+            for (Set<Move> moves : gameState.findPossibleMoves().values()) {
+                legal.addAll(moves);
+            }
+
+            Set<Move> expected = new HashSet<Move>();
+            for (Piece piece : gameState.getPiecesOnBoard(gameState.getCurrentPlayer())) {
+                Position origin = findPosition(piece);
+                for (Position destination : piece.getNextPositions(origin)) {
+                    Move move = new Move(origin, destination);
+                    if (gameState.makeMove(move)) {
+                        gameState.unmakeMove(move);
+                        expected.add(move);
+                    }
+                }
+            }
+
+            assertEquals("Legal moves differ at ply " + ply, expected, new HashSet<Move>(legal));
+
+            MoveList packed = new MoveList();
+            gameState.generateMoves(packed);
+            Set<Move> generated = new HashSet<Move>();
+            for (int i = 0; i < packed.size(); i++) {
+                int move = packed.get(i);
+                Piece captured = gameState.getPieceAt(Position.of(Moves.destination(move)));
+                assertEquals("Wrong capture flag on " + Moves.toString(move), captured != null, Moves.isCapture(move));
+                assertEquals("Wrong captured type on " + Moves.toString(move),
+                        captured == null ? null : captured.getType(), Moves.capturedType(move));
+                generated.add(Moves.toMove(move));
+            }
+            assertEquals("Packed moves differ at ply " + ply, expected, generated);
+            assertEquals("Packed moves should not repeat", generated.size(), packed.size());
+
+            if (legal.isEmpty()) {
+                break;
+            }
+            gameState.makeMove(legal.get(random.nextInt(legal.size())));
+        }
+    }
+
+    @Test
+    public void testGenerateMovesWithPinAndCheck() {
+        gameState.placePiece(new King(Player.White), "e1");
+        gameState.placePiece(new Bishop(Player.White), "d2");
+        gameState.placePiece(new Queen(Player.Black), "a5");
+        gameState.placePiece(new Rook(Player.Black), "h1");
+        gameState.placePiece(new King(Player.Black), "e8");
+
+        MoveList moves = new MoveList();
+        assertEquals("Only the King may move out of check", 2, gameState.generateMoves(moves));
+        for (int i = 0; i < moves.size(); i++) {
+            assertEquals("Only the King may move", Position.valueOf("e1").getIndex(), Moves.origin(moves.get(i)));
+        }
+
+        assertEquals("Generated moves should match the Move API",
+                gameState.findValidMovesFor(gameState.getPieceAt("e1")).size(), moves.size());
+    }
+
+    @Test
+    public void testCustomPieceCaptureKeepsPieceOrder() {
+        Piece first = customRook(Player.White);
+        Piece second = customRook(Player.White);
+        Piece third = customRook(Player.White);
+        gameState.placePiece(new King(Player.White), "h1");
+        gameState.placePiece(first, "d4");
+        gameState.placePiece(second, "f2");
+        gameState.placePiece(third, "b6");
+        gameState.placePiece(new Pawn(Player.Black), "d5");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        MoveList moves = new MoveList();
+        gameState.generateMoves(moves);
+        Set<Integer> unique = new HashSet<Integer>();
+        Set<Integer> origins = new HashSet<Integer>();
+        for (int i = 0; i < moves.size(); i++) {
+            assertTrue("Move generated twice: " + Moves.toString(moves.get(i)), unique.add(moves.get(i)));
+            origins.add(Moves.origin(moves.get(i)));
+        }
+        for (String square : new String[] {"d4", "f2", "b6"}) {
+            assertTrue("Every custom piece should move: " + square,
+                    origins.contains(Position.valueOf(square).getIndex()));
+        }
+
+        Map<Piece, Set<Move>> moveMap = gameState.findPossibleMoves();
+        for (Piece piece : new Piece[] {first, second, third}) {
+            assertNotNull("Every custom piece should have moves", moveMap.get(piece));
+            assertEquals("Moves should match the piece's own", gameState.findValidMovesFor(piece), moveMap.get(piece));
+        }
+    }
+
+    @Test
+    public void testCustomPiecesBypassPositionCache() {
+        gameState.setPositionCache(new PositionCache(64));
+        gameState.placePiece(new King(Player.White), "e1");
+        gameState.placePiece(customRook(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        MoveList moves = new MoveList();
+        gameState.generateMoves(moves);
+        gameState.findPossibleMoves();
+        makeMoves("a1 a2", "h8 g8", "a2 a3", "g8 h8");
+
+        // The Zobrist key is back where it started, but the custom piece has moved
+        gameState.generateMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            assertFalse("No move should start from the empty a1: " + Moves.toString(moves.get(i)),
+                    Moves.origin(moves.get(i)) == Position.valueOf("a1").getIndex());
+        }
+        assertEquals("Moves should match the uncached ones", gameState.findValidMovesFor(gameState.getPieceAt("a3")),
+                gameState.findPossibleMoves().get(gameState.getPieceAt("a3")));
+    }
+
+    @Test
+    public void testGenerateCapturesMatchesFilteredMoves() {
+        gameState.reset();
+        Random random = new Random(4321L);
+        MoveList moves = new MoveList();
+        MoveList captures = new MoveList();
+
+        for (int ply = 0; ply < 120 && gameState.generateMoves(moves) > 0; ply++) {
+            Set<Integer> expected = new HashSet<Integer>();
+            for (int i = 0; i < moves.size(); i++) {
+                if (Moves.isCapture(moves.get(i))) {
+                    expected.add(moves.get(i));
+                }
+            }
+
+            gameState.generateCaptures(captures);
+            Set<Integer> generated = new HashSet<Integer>();
+            for (int i = 0; i < captures.size(); i++) {
+                generated.add(captures.get(i));
+            }
+            assertEquals("Captures differ at ply " + ply, expected, generated);
+            assertEquals("Captures should not repeat", generated.size(), captures.size());
+
+            // Prefer captures so that the game reaches positions with few pieces
+            MoveList choices = captures.isEmpty() ? moves : captures;
+            gameState.makeMove(choices.get(random.nextInt(choices.size())));
+        }
+    }
+
+    @Test
+    public void testUnmakeManyPlies() {
+        gameState.reset();
+        long startKey = gameState.getZobristKey();
+        Map<Position, Piece> startBoard = snapshot();
+
+        Random random = new Random(1234L);
+        MoveList moves = new MoveList();
+        List<Long> keys = new ArrayList<Long>();
+        for (int ply = 0; ply < 40 && gameState.generateMoves(moves) > 0; ply++) {
+            keys.add(gameState.getZobristKey());
+            gameState.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+
+        assertEquals("Every move should be on the stack", keys.size(), gameState.getHistorySize());
+        for (int ply = keys.size() - 1; ply >= 0; ply--) {
+            gameState.unmakeMove();
+            assertEquals("Wrong key after taking back ply " + ply, keys.get(ply).longValue(), gameState.getZobristKey());
+        }
+
+        assertEquals("Should be back to the start", startKey, gameState.getZobristKey());
+        assertEquals("Pieces should be back where they started", startBoard, snapshot());
+        assertEquals("White should be to move", Player.White, gameState.getCurrentPlayer());
+        assertEquals("Nothing left to take back", 0, gameState.getHistorySize());
+    }
+
+    @Test
+    public void testPieceSquareScoresAreIncremental() {
+        gameState.reset();
+        assertScoresMatch(gameState, "at the start");
+
+        Random random = new Random(5678L);
+        MoveList moves = new MoveList();
+        for (int ply = 0; ply < 60 && gameState.generateMoves(moves) > 0; ply++) {
+            gameState.makeMove(moves.get(random.nextInt(moves.size())));
+            assertScoresMatch(gameState, "after ply " + ply);
+        }
+
+        assertScoresMatch(gameState.copy(), "in a copy");
+
+        while (gameState.getHistorySize() > 0) {
+            gameState.unmakeMove();
+            assertScoresMatch(gameState, "after taking back to ply " + gameState.getHistorySize());
+        }
+    }
+
+    private static void assertScoresMatch(GameState gameState, String when) {
+        for (Player player : Player.values()) {
+            assertEquals("Wrong " + player + " middlegame score " + when,
+                    PieceSquareTables.computeScore(gameState, player, false), gameState.getMiddlegameScore(player));
+            assertEquals("Wrong " + player + " endgame score " + when,
+                    PieceSquareTables.computeScore(gameState, player, true), gameState.getEndgameScore(player));
+        }
+    }
+
+    @Test
+    public void testSeeScoreOfUndefendedCapture() {
+        gameState.placePiece(new King(Player.White), "h1");
+        gameState.placePiece(new Rook(Player.White), "e1");
+        gameState.placePiece(new Knight(Player.Black), "e5");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        assertEquals("Should win the Knight", 320, gameState.seeScore(new Move("e1 e5")));
+    }
+
+    @Test
+    public void testSeeScoreOfDefendedCapture() {
+        gameState.placePiece(new King(Player.White), "h1");
+        gameState.placePiece(new Knight(Player.White), "c3");
+        gameState.placePiece(new Pawn(Player.White), "e4");
+        gameState.placePiece(new Pawn(Player.Black), "d5");
+        gameState.placePiece(new Pawn(Player.Black), "e6");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        assertEquals("Knight takes defended pawn loses a Knight for two pawns", -120,
+                gameState.seeScore(new Move("c3 d5")));
+        assertEquals("Pawn takes pawn, backed up by the Knight, wins a pawn", 100,
+                gameState.seeScore(new Move("e4 d5")));
+    }
+
+    @Test
+    public void testSeeScoreSeesXRays() {
+        gameState.placePiece(new King(Player.White), "h1");
+        gameState.placePiece(new Rook(Player.White), "d1");
+        gameState.placePiece(new Rook(Player.White), "d2");
+        gameState.placePiece(new Pawn(Player.Black), "d5");
+        gameState.placePiece(new Rook(Player.Black), "d8");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        assertEquals("The Rook behind should recapture", 100, gameState.seeScore(new Move("d2 d5")));
+
+        gameState.placePiece(new Rook(Player.Black), "d7");
+        assertEquals("Black's doubled Rooks should win a Rook", -400, gameState.seeScore(new Move("d2 d5")));
+    }
+
+    @Test
+    public void testSeeScoreStopsLosingExchange() {
+        gameState.placePiece(new King(Player.White), "h1");
+        gameState.placePiece(new Queen(Player.White), "b3");
+        gameState.placePiece(new Knight(Player.White), "c3");
+        gameState.placePiece(new Pawn(Player.Black), "d5");
+        gameState.placePiece(new Pawn(Player.Black), "e6");
+        gameState.placePiece(new Rook(Player.Black), "d8");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        // After Nxd5 exd5, Qxd5 Rxd5 would lose the Queen too, so the Queen stays put
+        assertEquals("White should stop after the Knight is taken", -220, gameState.seeScore(new Move("c3 d5")));
+    }
+
+    @Test
+    public void testSeeScoreOfQuietMove() {
+        gameState.reset();
+        gameState.makeMove(new Move("e2 e4"));
+        gameState.makeMove(new Move("e7 e5"));
+
+        assertEquals("A safe move neither wins nor loses", 0, gameState.seeScore(new Move("g1 f3")));
+        assertEquals("The Queen would be taken by a pawn", -900, gameState.seeScore(new Move("d1 d4")));
+    }
+
+    @Test
+    public void testSeeScoreOfPackedMoves() {
+        gameState.reset();
+        Random random = new Random(1234L);
+        MoveList moves = new MoveList();
+
+        for (int ply = 0; ply < 60 && gameState.generateMoves(moves) > 0; ply++) {
+            for (int i = 0; i < moves.size(); i++) {
+                int move = moves.get(i);
+                assertEquals("Packed and unpacked moves should agree: " + Moves.toString(move),
+                        gameState.seeScore(Moves.toMove(move)), gameState.seeScore(move));
+                if (Moves.isCapture(move) && gameState.getPieceAt(Position.of(Moves.origin(move))).getType()
+                        == Moves.capturedType(move)) {
+                    assertTrue("Capturing a like piece can only gain: " + Moves.toString(move),
+                            gameState.seeScore(move) >= 0);
+                }
+            }
+            gameState.makeMove(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeeScoreWithoutPiece() {
+        gameState.reset();
+        gameState.seeScore(new Move("e4 e5"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnmakeWithNoHistory() {
+        gameState.reset();
+        gameState.unmakeMove();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnmakeWrongMove() {
+        gameState.reset();
+        gameState.makeMove(new Move("e2 e4"));
+        gameState.unmakeMove(new Move("d2 d4"));
+    }
+
+    /**
+     * Create a piece that moves like a Rook but is not of a standard type
+     */
+    private static Piece customRook(Player player) {
+        return new Rook(player) {
+            @Override
+            protected char getIdentifierCharacter() {
+                return 'x';
+            }
+        };
+    }
+
+    private Map<Position, Piece> snapshot() {
+        Map<Position, Piece> pieces = new HashMap<Position, Piece>();
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            Piece piece = gameState.getPieceAt(Position.of(index));
+            if (piece != null) {
+                pieces.put(Position.of(index), piece);
+            }
+        }
+        return pieces;
+    }
+
+    private Position findPosition(Piece piece) {
+        for (int index = 0; index < GameState.NUM_SQUARES; index++) {
+            if (gameState.getPieceAt(Position.of(index)) == piece) {
+                return Position.of(index);
+            }
+        }
+        return null;
+    }
+
     private void makeMoves(String... moves) {
+        makeMoves(gameState, moves);
+    }
+
+    private static void makeMoves(GameState state, String... moves) {
         for (String move : moves) {
-            gameState.makeMove(move);
+            state.makeMove(move);
         }
     }
 
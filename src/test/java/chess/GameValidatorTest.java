@@ -0,0 +1,110 @@
+package chess;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for validating corpora of games in parallel
+ */
+public class GameValidatorTest {
+
+    private static final String MOVES_GAME = "e2 e4 e7 e5 g1 f3 b8 c6 f1 b5 a7 a6\n";
+    private static final String BAD_MOVES_GAME = "# a comment\nmove d2 d4 move d7 d5 e1 e3\n";
+    private static final String FEN_MOVES_GAME = "4k3/8/8/8/8/8/4P3/4K3 w - - 0 1; e2 e4 e8 d7\n";
+
+    private static final String PGN_GAME = "[Event \"Fine\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 1-0\n\n";
+    private static final String BAD_PGN_GAME = "[Event \"Castles\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O *\n\n";
+
+    @Test
+    public void testValidateMoves() {
+        String corpus = MOVES_GAME + "\n" + BAD_MOVES_GAME + FEN_MOVES_GAME + "a2 a4 b7\n" + "4k3 w; e2 e4\n";
+        ValidationResult result = validate(corpus, GameValidator.Format.MOVES, 1 << 20);
+
+        assertEquals("Wrong number of games", 5, result.getGames());
+        assertEquals("Wrong number of plies", 6 + 2 + 2 + 1, result.getPlies());
+        assertEquals("Wrong errors", Arrays.asList(
+                "Game 2, ply 3: Illegal move: e1 e3",
+                "Game 4, ply 2: Missing destination for b7",
+                "Game 5: Piece placement does not cover the board (FEN: 4k3 w)"), result.getErrors());
+    }
+
+    @Test
+    public void testValidatePgn() {
+        ValidationResult result = validate(PGN_GAME + BAD_PGN_GAME + PGN_GAME, GameValidator.Format.PGN, 1 << 20);
+
+        assertEquals("Wrong number of games", 3, result.getGames());
+        assertEquals("Wrong number of plies", 6 + 6 + 6, result.getPlies());
+        assertEquals("Wrong errors", Arrays.asList("Game 2, ply 7: Castling is not supported: O-O"), result.getErrors());
+    }
+
+    @Test
+    public void testSplitCorpusMatchesWhole() {
+        String[] games = {MOVES_GAME + BAD_MOVES_GAME + FEN_MOVES_GAME, PGN_GAME + BAD_PGN_GAME};
+        int[] gamesPerRepeat = {3, 2};
+        for (GameValidator.Format format : GameValidator.Format.values()) {
+            StringBuilder corpus = new StringBuilder();
+            for (int i = 0; i < 200; i++) {
+                corpus.append(games[format.ordinal()]);
+            }
+
+            ValidationResult whole = validate(corpus.toString(), format, Integer.MAX_VALUE);
+            ValidationResult split = validate(corpus.toString(), format, 64);
+
+            assertEquals("Wrong number of " + format + " games", 200 * gamesPerRepeat[format.ordinal()], split.getGames());
+            assertEquals("Splitting should not change the " + format + " plies", whole.getPlies(), split.getPlies());
+            assertEquals("Splitting should not change the " + format + " errors", whole.getErrors(), split.getErrors());
+            assertEquals("One game in each repeat should fail", 200, split.getFailedGames());
+        }
+    }
+
+    @Test
+    public void testFindGameStart() {
+        ByteBuffer pgn = ByteBuffer.wrap(bytes(PGN_GAME + BAD_PGN_GAME));
+        assertEquals("Should skip to the next game's tags", PGN_GAME.length(),
+                GameValidator.findGameStart(pgn, GameValidator.Format.PGN, 1, pgn.limit()));
+        assertEquals("No game starts in the last one", pgn.limit(),
+                GameValidator.findGameStart(pgn, GameValidator.Format.PGN, PGN_GAME.length() + 1, pgn.limit()));
+
+        ByteBuffer moves = ByteBuffer.wrap(bytes(MOVES_GAME + FEN_MOVES_GAME));
+        assertEquals("Should skip to the next line", MOVES_GAME.length(),
+                GameValidator.findGameStart(moves, GameValidator.Format.MOVES, 3, moves.limit()));
+    }
+
+    @Test
+    public void testValidateFile() throws IOException {
+        File file = File.createTempFile("corpus", ".txt");
+        file.deleteOnExit();
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes(PGN_GAME + BAD_PGN_GAME));
+        } finally {
+            out.close();
+        }
+
+        ValidationResult result = new GameValidator(new ForkJoinPool(2)).validate(file);
+        assertEquals("A file starting with a tag should be read as PGN", 2, result.getGames());
+        assertEquals("The castling game should fail", 1, result.getFailedGames());
+    }
+
+    private static ValidationResult validate(String corpus, GameValidator.Format format, int chunkSize) {
+        GameValidator validator = new GameValidator(new ForkJoinPool(4));
+        validator.setChunkSize(chunkSize);
+        return validator.validate(ByteBuffer.wrap(bytes(corpus)), format);
+    }
+
+    private static byte[] bytes(String text) {
+        try {
+            return text.getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
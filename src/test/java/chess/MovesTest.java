@@ -0,0 +1,69 @@
+package chess;
+
+import chess.pieces.PieceType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for packed moves and the MoveList buffer
+ */
+public class MovesTest {
+
+    @Test
+    public void testEncodeQuietMove() {
+        int move = Moves.encode(Position.valueOf("e2").getIndex(), Position.valueOf("e4").getIndex(), null);
+
+        assertEquals("Wrong origin", Position.valueOf("e2").getIndex(), Moves.origin(move));
+        assertEquals("Wrong destination", Position.valueOf("e4").getIndex(), Moves.destination(move));
+        assertFalse("A quiet move is not a capture", Moves.isCapture(move));
+        assertNull("A quiet move captures nothing", Moves.capturedType(move));
+        assertEquals("Wrong notation", "e2 e4", Moves.toString(move));
+        assertEquals("Wrong Move", new Move("e2 e4"), Moves.toMove(move));
+        assertTrue("A real move is never NONE", move != Moves.NONE);
+    }
+
+    @Test
+    public void testEncodeCapture() {
+        for (PieceType type : PieceType.values()) {
+            int move = Moves.encode(Position.valueOf("d4").getIndex(), Position.valueOf("e5").getIndex(), type);
+
+            assertTrue("Should be a capture", Moves.isCapture(move));
+            assertEquals("Wrong captured type", type, Moves.capturedType(move));
+            assertEquals("Flags should not disturb the squares", "d4 e5", Moves.toString(move));
+            assertEquals("Squares should drop the flags",
+                    Moves.encode(Position.valueOf("d4").getIndex(), Position.valueOf("e5").getIndex(), null),
+                    Moves.squares(move));
+        }
+
+        int unknown = Moves.encode(0, 9, Moves.CAPTURE);
+        assertTrue("Should be a capture", Moves.isCapture(unknown));
+        assertNull("Captured type is unknown", Moves.capturedType(unknown));
+    }
+
+    @Test
+    public void testMoveListGrowsAndClears() {
+        MoveList list = new MoveList(2);
+        for (int i = 1; i <= 5; i++) {
+            list.add(i);
+        }
+
+        assertEquals("Wrong size after growing", 5, list.size());
+        assertEquals("Moves should keep their order", 4, list.get(3));
+        assertEquals("Wrong index", 2, list.indexOf(3));
+        assertEquals("Missing moves have no index", -1, list.indexOf(99));
+
+        list.set(0, 42);
+        assertArrayEquals("Wrong contents", new int[] {42, 2, 3, 4, 5}, list.toArray());
+
+        list.clear();
+        assertTrue("List should be empty", list.isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMoveListBounds() {
+        MoveList list = new MoveList();
+        list.add(1);
+        list.get(1);
+    }
+}
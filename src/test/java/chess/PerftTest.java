@@ -0,0 +1,78 @@
+package chess;
+
+import chess.pieces.King;
+import chess.pieces.Rook;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Check the move generator against known perft node counts
+ */
+public class PerftTest {
+
+    private GameState gameState;
+    private Perft perft;
+
+    @Before
+    public void setUp() {
+        gameState = new GameState();
+        perft = new Perft(gameState);
+    }
+
+    @Test
+    public void testInitialPosition() {
+        gameState.reset();
+
+        assertEquals("Wrong node count at depth 1", 20, perft.perft(1));
+        assertEquals("Wrong node count at depth 2", 400, perft.perft(2));
+        assertEquals("Wrong node count at depth 3", 8902, perft.perft(3));
+        assertEquals("Wrong node count at depth 4", 197281, perft.perft(4));
+    }
+
+    @Test
+    public void testPositionIsRestored() {
+        gameState.reset();
+        perft.perft(2);
+
+        assertEquals("White should be to move again", Player.White, gameState.getCurrentPlayer());
+        assertEquals("White should still have all its pieces", 16, gameState.getPiecesOnBoard(Player.White).size());
+        assertEquals("Black should still have all its pieces", 16, gameState.getPiecesOnBoard(Player.Black).size());
+        assertNotNull("The e2 pawn should be back in place", gameState.getPieceAt("e2"));
+        assertNull("e4 should be empty again", gameState.getPieceAt("e4"));
+    }
+
+    @Test
+    public void testDivide() {
+        gameState.reset();
+
+        Map<Move, Long> counts = perft.divide(2);
+        assertEquals("There should be one entry per root move", 20, counts.size());
+        assertEquals("Every root move allows 20 replies", Long.valueOf(20), counts.get(new Move("e2 e4")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeDepth() {
+        gameState.reset();
+        perft.perft(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDivideWithoutRootMoves() {
+        gameState.reset();
+        perft.divide(0);
+    }
+
+    @Test
+    public void testNoLegalMoves() {
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "b8");
+        gameState.placePiece(new Rook(Player.Black), "h2");
+
+        assertEquals("The White King has nowhere to go", 0, perft.perft(1));
+    }
+}
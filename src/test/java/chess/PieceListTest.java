@@ -0,0 +1,107 @@
+package chess;
+
+import chess.pieces.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the piece lists a GameState keeps
+ */
+public class PieceListTest {
+
+    private GameState gameState;
+
+    @Before
+    public void setUp() {
+        gameState = new GameState();
+    }
+
+    @Test
+    public void testStartingPosition() {
+        gameState.reset();
+        PieceList pieces = gameState.getPieceList();
+
+        assertEquals("White should have 16 pieces", 16, pieces.size(Player.White));
+        assertEquals("Black should have 8 pawns", 8, pieces.size(Player.Black, PieceType.Pawn));
+        assertEquals("White should have one King", 1, pieces.size(Player.White, PieceType.King));
+        assertEquals("Wrong square for the White King",
+                Position.valueOf("e1").getIndex(), pieces.getSquare(Player.White, PieceType.King, 0));
+        assertEquals("No pieces of other types", 0, pieces.size(Player.White, null));
+        assertConsistent(gameState);
+    }
+
+    @Test
+    public void testCaptureAndTakeBack() {
+        gameState.placePiece(new King(Player.White), "e1");
+        gameState.placePiece(new Rook(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "e8");
+        gameState.placePiece(new Knight(Player.Black), "a8");
+        gameState.placePiece(new Knight(Player.Black), "b8");
+
+        gameState.makeMove(new Move("a1 a8"));
+        assertEquals("The captured knight should be gone", 1, gameState.getPieceList().size(Player.Black, PieceType.Knight));
+        assertEquals("The rook should have moved",
+                Position.valueOf("a8").getIndex(), gameState.getPieceList().getSquare(Player.White, PieceType.Rook, 0));
+        assertConsistent(gameState);
+
+        gameState.unmakeMove();
+        assertEquals("The knight should be back", 2, gameState.getPieceList().size(Player.Black, PieceType.Knight));
+        assertConsistent(gameState);
+    }
+
+    @Test
+    public void testRandomGames() {
+        gameState.reset();
+        Random random = new Random(99L);
+        MoveList moves = new MoveList();
+
+        for (int ply = 0; ply < 200 && gameState.generateMoves(moves) > 0; ply++) {
+            gameState.makeMove(moves.get(random.nextInt(moves.size())));
+            assertConsistent(gameState);
+
+            if (random.nextInt(4) == 0) {
+                gameState.unmakeMove();
+                assertConsistent(gameState);
+            }
+        }
+
+        assertConsistent(gameState.copy());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfRange() {
+        gameState.reset();
+        gameState.getPieceList().get(Player.White, PieceType.Queen, 1);
+    }
+
+    /**
+     * Check that the piece lists hold exactly the pieces on the board, on the right squares
+     */
+    private static void assertConsistent(GameState state) {
+        Map<Integer, Piece> listed = new HashMap<Integer, Piece>();
+        PieceList pieces = state.getPieceList();
+        for (Player player : Player.values()) {
+            for (int type = 0; type <= PieceType.COUNT; type++) {
+                PieceType pieceType = type < PieceType.COUNT ? PieceType.forOrdinal(type) : null;
+                for (int i = 0; i < pieces.size(player, pieceType); i++) {
+                    Piece piece = pieces.get(player, pieceType, i);
+                    assertEquals("Piece listed under the wrong player", player, piece.getPlayer());
+                    assertEquals("Piece listed under the wrong type", pieceType, piece.getType());
+                    assertNull("Two pieces listed on one square",
+                            listed.put(pieces.getSquare(player, pieceType, i), piece));
+                }
+            }
+        }
+
+        for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+            assertSame("Lists and board disagree on square " + Position.of(square),
+                    state.getPieceAt(Position.of(square)), listed.get(square));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package chess;
+
+import chess.pieces.King;
+import chess.pieces.Piece;
+import chess.pieces.Rook;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the PositionCache and its use by GameState
+ */
+public class PositionCacheTest {
+
+    private PositionCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new PositionCache(4);
+    }
+
+    @Test
+    public void testCapacityIsRoundedUp() {
+        assertEquals("Capacity should round up to a power of two", 8, new PositionCache(5).getCapacity());
+        assertEquals("Capacity should be at least two", 2, new PositionCache(1).getCapacity());
+    }
+
+    @Test
+    public void testHitsAndMisses() {
+        assertNull("Nothing should be cached yet", cache.getInCheck(42L));
+        cache.putInCheck(42L, true);
+
+        assertEquals("The answer should be cached", Boolean.TRUE, cache.getInCheck(42L));
+        assertNull("Only the check answer was stored", cache.getHasLegalMove(42L));
+        assertEquals("Wrong number of hits", 1, cache.getHits());
+        assertEquals("Wrong number of misses", 2, cache.getMisses());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsReplaced() {
+        // With a capacity of four there are two buckets, so these keys all share bucket 0
+        cache.putHasLegalMove(0L, false);
+        cache.putHasLegalMove(2L, true);
+        cache.getHasLegalMove(0L);
+        cache.putHasLegalMove(4L, false);
+
+        assertEquals("The recently used entry should survive", Boolean.FALSE, cache.getHasLegalMove(0L));
+        assertNull("The least recently used entry should be replaced", cache.getHasLegalMove(2L));
+        assertEquals("The new entry should be present", Boolean.FALSE, cache.getHasLegalMove(4L));
+    }
+
+    @Test
+    public void testClear() {
+        cache.putInCheck(7L, false);
+        cache.getInCheck(7L);
+        cache.clear();
+
+        assertEquals("Counters should be reset", 0, cache.getHits());
+        assertNull("Entries should be forgotten", cache.getInCheck(7L));
+    }
+
+    @Test
+    public void testCachedMovesMatch() {
+        GameState gameState = new GameState();
+        gameState.setPositionCache(cache);
+        gameState.reset();
+        gameState.makeMove("e2 e4");
+
+        Map<Piece, Set<Move>> computed = gameState.findPossibleMoves();
+        Map<Piece, Set<Move>> cached = gameState.findPossibleMoves();
+
+        assertEquals("The second call should be served from the cache", 1, cache.getHits());
+        assertEquals("Cached moves should match the computed ones", computed, cached);
+    }
+
+    @Test
+    public void testPerftWithCache() {
+        GameState gameState = new GameState();
+        gameState.setPositionCache(new PositionCache(1024));
+        gameState.reset();
+
+        assertEquals("Caching should not change the node count", 8902, new Perft(gameState).perft(3));
+    }
+
+    @Test
+    public void testCachedGameOver() {
+        GameState gameState = new GameState();
+        gameState.setPositionCache(cache);
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "a8");
+        gameState.placePiece(new Rook(Player.Black), "b8");
+
+        assertTrue("White has been checkmated", gameState.isGameOver());
+        long misses = cache.getMisses();
+
+        assertTrue("White has been checkmated", gameState.isGameOver());
+        assertEquals("The answer should come from the cache", misses, cache.getMisses());
+    }
+
+    @Test
+    public void testLegalMoveReadFromCachedMoves() {
+        GameState gameState = new GameState();
+        gameState.setPositionCache(cache);
+        gameState.reset();
+        gameState.generateMoves(new MoveList());
+        long misses = cache.getMisses();
+
+        assertTrue("White can move", gameState.hasAnyLegalMove());
+        assertEquals("The answer should come from the cached moves", misses, cache.getMisses());
+    }
+}
@@ -75,4 +75,31 @@ public class PositionTest {
             // Yay
         }
     }
+
+    @Test
+    public void testSharedInstances() {
+        assertSame("valueOf should return the shared instance", Position.of('d', 4), Position.valueOf("d4"));
+        assertSame("of(index) should return the shared instance", Position.valueOf("d4"), Position.of(27));
+        assertEquals("Shared instances are equal to constructed ones", position, Position.valueOf("d4"));
+        assertEquals("Wrong index for h8", 63, Position.valueOf("h8").getIndex());
+        assertEquals("OFF_BOARD has no index", -1, Position.OFF_BOARD.getIndex());
+    }
+
+    @Test
+    public void testStep() {
+        assertSame("Stepping should return the shared instance", Position.valueOf("e5"), position.step(Direction.NorthEast));
+        assertNull("Cannot step off the board", Position.valueOf("a1").step(Direction.South));
+        assertNull("Cannot step off the board", Position.valueOf("h4").step(Direction.East));
+        assertNull("Cannot step from OFF_BOARD", Position.OFF_BOARD.step(Direction.North));
+    }
+
+    @Test
+    public void testInvalidSharedPosition() {
+        try {
+            Position.valueOf("i9");
+            fail("Should not be able to find a position that is off the board");
+        } catch (InvalidPositionException ex) {
+            // Expected
+        }
+    }
 }
@@ -0,0 +1,68 @@
+package chess.board;
+
+import chess.Direction;
+import chess.Position;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the precomputed AttackTables
+ */
+public class AttackTablesTest {
+
+    @Test
+    public void testKnightTargets() {
+        assertEquals("A knight in the corner has two jumps",
+                squares("b3", "c2"), toSet(AttackTables.knightTargets(Position.valueOf("a1"))));
+        assertEquals("A knight in the centre has eight jumps",
+                8, AttackTables.knightTargets(Position.valueOf("d4")).length);
+        assertEquals("Wrong targets for a knight on g1",
+                squares("e2", "f3", "h3"), toSet(AttackTables.knightTargets(Position.valueOf("g1"))));
+    }
+
+    @Test
+    public void testKingTargets() {
+        assertEquals("A King in the corner has three neighbours",
+                squares("a2", "b1", "b2"), toSet(AttackTables.kingTargets(Position.valueOf("a1"))));
+        assertEquals("A King on the edge has five neighbours",
+                5, AttackTables.kingTargets(Position.valueOf("e1")).length);
+        assertEquals("A King in the centre has eight neighbours",
+                8, AttackTables.kingTargets(Position.valueOf("e4")).length);
+    }
+
+    @Test
+    public void testRays() {
+        assertArrayEquals("Ray should run nearest first to the edge",
+                new Position[] {Position.valueOf("d5"), Position.valueOf("d6"), Position.valueOf("d7"), Position.valueOf("d8")},
+                AttackTables.ray(Position.valueOf("d4"), Direction.North));
+        assertArrayEquals("Diagonal ray from c1 to the west",
+                new Position[] {Position.valueOf("b2"), Position.valueOf("a3")},
+                AttackTables.ray(Position.valueOf("c1"), Direction.NorthWest));
+        assertEquals("No ray leaves the board", 0, AttackTables.ray(Position.valueOf("h8"), Direction.East).length);
+    }
+
+    @Test
+    public void testOffBoard() {
+        assertEquals("Nothing is reachable from off the board", 0, AttackTables.knightTargets(Position.OFF_BOARD).length);
+        assertEquals("Nothing is reachable from off the board", 0, AttackTables.kingTargets(Position.OFF_BOARD).length);
+        assertEquals("Nothing is reachable from off the board",
+                0, AttackTables.ray(Position.OFF_BOARD, Direction.North).length);
+    }
+
+    private static Set<Position> toSet(Position[] positions) {
+        return new HashSet<Position>(Arrays.asList(positions));
+    }
+
+    private static Set<Position> squares(String... names) {
+        Set<Position> positions = new HashSet<Position>();
+        for (String name : names) {
+            positions.add(Position.valueOf(name));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,67 @@
+package chess.board;
+
+import chess.Player;
+import chess.Position;
+import chess.pieces.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the BitboardBoard
+ */
+public class BitboardBoardTest {
+
+    private BitboardBoard board;
+
+    @Before
+    public void setUp() {
+        board = new BitboardBoard();
+    }
+
+    @Test
+    public void testPlacePiece() {
+        Rook rook = new Rook(Player.White);
+        assertNull("Nothing should be replaced on an empty board", board.placePiece(rook, new Position("a1")));
+
+        assertEquals("Wrong piece found at a1", rook, board.getPieceAt(new Position("a1")));
+        assertEquals("Wrong position for the rook", new Position("a1"), board.getPositionOf(rook));
+        assertEquals("a1 should be the only occupied square", 1L, board.getOccupancy());
+        assertEquals("a1 should be a White rook", 1L, board.getBitboard(Player.White, PieceType.Rook));
+        assertEquals("Black should have no pieces", 0L, board.getOccupancy(Player.Black));
+    }
+
+    @Test
+    public void testMovePiece() {
+        Queen queen = new Queen(Player.Black);
+        board.placePiece(queen, new Position("d8"));
+        board.placePiece(queen, new Position("d1"));
+
+        assertNull("d8 should be empty after the move", board.getPieceAt(new Position("d8")));
+        assertEquals("The queen should be on d1", queen, board.getPieceAt(new Position("d1")));
+        assertEquals("Only d1 should be occupied", 1L << 3, board.getBitboard(Player.Black, PieceType.Queen));
+    }
+
+    @Test
+    public void testCapture() {
+        Knight knight = new Knight(Player.White);
+        Pawn pawn = new Pawn(Player.Black);
+        board.placePiece(knight, new Position("c3"));
+        board.placePiece(pawn, new Position("d5"));
+
+        Piece replaced = board.placePiece(knight, new Position("d5"));
+
+        assertEquals("The pawn should have been replaced", pawn, replaced);
+        assertEquals("The pawn should be off the board", Position.OFF_BOARD, board.getPositionOf(pawn));
+        assertEquals("Black should have no pieces left", 0L, board.getOccupancy(Player.Black));
+        assertEquals("White should have one piece", 1, board.getPieces(Player.White).size());
+        assertEquals("Black should have no pieces", 0, board.getPieces(Player.Black).size());
+    }
+
+    @Test
+    public void testOffBoardLookup() {
+        assertNull("Nothing can be off the board", board.getPieceAt(Position.OFF_BOARD));
+        assertNull("A null position holds nothing", board.getPieceAt(null));
+    }
+}
@@ -0,0 +1,75 @@
+package chess.board;
+
+import chess.Direction;
+import chess.GameState;
+import chess.Position;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the magic bitboard slider attacks
+ */
+public class MagicsTest {
+
+    private static final Direction[] ROOK_DIRECTIONS = {
+            Direction.North, Direction.East, Direction.South, Direction.West
+    };
+
+    private static final Direction[] BISHOP_DIRECTIONS = {
+            Direction.NorthEast, Direction.SouthEast, Direction.SouthWest, Direction.NorthWest
+    };
+
+    @Test
+    public void testEmptyBoard() {
+        assertEquals("A Rook on an empty board attacks its whole row and column",
+                14, Long.bitCount(Magics.rookAttacks(Position.valueOf("d4").getIndex(), 0)));
+        assertEquals("A Bishop in the corner attacks the long diagonal",
+                7, Long.bitCount(Magics.bishopAttacks(Position.valueOf("a1").getIndex(), 0)));
+        assertEquals("A Queen in the centre of an empty board",
+                27, Long.bitCount(Magics.queenAttacks(Position.valueOf("d4").getIndex(), 0)));
+    }
+
+    @Test
+    public void testBlocked() {
+        long occupied = bit("d6") | bit("b4") | bit("d2");
+        long expected = bit("d5") | bit("d6") | bit("c4") | bit("b4") | bit("d3") | bit("d2")
+                | bit("e4") | bit("f4") | bit("g4") | bit("h4");
+
+        assertEquals("Rook attacks should stop at and include the first piece",
+                expected, Magics.rookAttacks(Position.valueOf("d4").getIndex(), occupied));
+    }
+
+    @Test
+    public void testMatchesRayWalk() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+                assertEquals("Rook attacks differ on square " + square,
+                        walk(square, occupied, ROOK_DIRECTIONS), Magics.rookAttacks(square, occupied));
+                assertEquals("Bishop attacks differ on square " + square,
+                        walk(square, occupied, BISHOP_DIRECTIONS), Magics.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    private static long walk(int square, long occupied, Direction[] directions) {
+        long attacks = 0;
+        for (Direction direction : directions) {
+            for (Position position : AttackTables.ray(Position.of(square), direction)) {
+                attacks |= 1L << position.getIndex();
+                if ((occupied & 1L << position.getIndex()) != 0) {
+                    break;
+                }
+            }
+        }
+        return attacks;
+    }
+
+    private static long bit(String square) {
+        return 1L << Position.valueOf(square).getIndex();
+    }
+}
@@ -0,0 +1,76 @@
+package chess.board;
+
+import chess.Fen;
+import chess.GameState;
+import chess.Player;
+import chess.Position;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.PieceType;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the piece-square tables
+ */
+public class PieceSquareTablesTest {
+
+    @Test
+    public void testSquareBonuses() {
+        assertEquals("Knight in the corner", 320 - 50,
+                PieceSquareTables.middlegame(new Knight(Player.White), Position.valueOf("a1")));
+        assertEquals("Pawn in the centre", 100 + 20,
+                PieceSquareTables.middlegame(new Pawn(Player.White), Position.valueOf("e4")));
+        assertEquals("Pawn about to promote", 100 + 50,
+                PieceSquareTables.middlegame(new Pawn(Player.White), Position.valueOf("e7")));
+        assertEquals("Black pawn in the centre", 100 + 20,
+                PieceSquareTables.middlegame(new Pawn(Player.Black), Position.valueOf("d5")));
+    }
+
+    @Test
+    public void testKingPhases() {
+        King king = new King(Player.White);
+        assertEquals("The King is safe at home in the middlegame", 30,
+                PieceSquareTables.middlegame(king, Position.valueOf("g1")));
+        assertEquals("The King should leave the corner in the endgame", -30,
+                PieceSquareTables.endgame(king, Position.valueOf("g1")));
+        assertTrue("The King belongs in the centre in the endgame",
+                PieceSquareTables.endgame(king, Position.valueOf("e4"))
+                        > PieceSquareTables.middlegame(king, Position.valueOf("e4")));
+    }
+
+    @Test
+    public void testPlayersAreMirrored() {
+        for (PieceType type : PieceType.values()) {
+            for (int square = 0; square < GameState.NUM_SQUARES; square++) {
+                Position white = Position.of(square);
+                Position black = Position.of(square ^ (GameState.NUM_SQUARES - GameState.NUM_COLUMNS));
+                assertEquals("Middlegame " + type + " on " + white + " should mirror",
+                        PieceSquareTables.middlegame(type.newPiece(Player.White), white),
+                        PieceSquareTables.middlegame(type.newPiece(Player.Black), black));
+                assertEquals("Endgame " + type + " on " + white + " should mirror",
+                        PieceSquareTables.endgame(type.newPiece(Player.White), white),
+                        PieceSquareTables.endgame(type.newPiece(Player.Black), black));
+            }
+        }
+    }
+
+    @Test
+    public void testStartingPositionIsBalanced() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        assertEquals("Both sides should score the same", PieceSquareTables.computeScore(gameState, Player.White, false),
+                PieceSquareTables.computeScore(gameState, Player.Black, false));
+        assertEquals("Material plus bonuses",
+                8 * 100 + 2 * 320 + 2 * 330 + 2 * 500 + 900 + (-40 - 10 - 5 + 0 - 10 - 40) + (5 + 10 + 10 - 20 - 20 + 10 + 10 + 5),
+                gameState.getMiddlegameScore(Player.White));
+    }
+
+    @Test
+    public void testMissingPieces() {
+        assertEquals("No piece scores nothing", 0, PieceSquareTables.middlegame(null, Position.valueOf("e4")));
+        assertEquals("Off the board scores nothing", 0,
+                PieceSquareTables.endgame(new Pawn(Player.White), Position.OFF_BOARD));
+    }
+}
@@ -0,0 +1,165 @@
+package chess.pgn;
+
+import chess.Fen;
+import chess.GameState;
+import chess.Moves;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the streaming PGN reader
+ */
+public class PgnReaderTest {
+
+    private static final String PGN =
+            "[Event \"Casual \\\"blitz\\\"\"]\n"
+            + "[White \"Alice\"]\n"
+            + "[Black \"Bob\"]\n"
+            + "[Result \"1/2-1/2\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Nf3 {a comment} Nc6 3. Bb5 a6 (3... Nf6 4. O-O) 4. Bxc6 dxc6 $1\n"
+            + "5. Nxe5 Qd4 6. Nf3 Qxe4+ 7. Qe2 Qxe2+ ; rest of line\n"
+            + "8. Kxe2 1/2-1/2\n"
+            + "\n"
+            + "[Event \"Castles\"]\n"
+            + "\n"
+            + "1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.O-O Nf6 5.d3 0-1\n"
+            + "\n"
+            + "[Event \"From a position\"]\n"
+            + "[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1\"]\n"
+            + "\n"
+            + "1. e4 Kd7 2. e5 *\n"
+            + "\n"
+            + "1. d4 d5\n";
+
+    @Test
+    public void testReadGames() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(PGN.getBytes("UTF-8")));
+
+        assertEquals("Wrong number of games", 4, reader.readAll(listener));
+        assertEquals("Wrong events", expectedEvents(), listener.events);
+        assertEquals("Wrong final position of the first game",
+                "r1b1kbnr/1pp2ppp/p1p5/8/8/5N2/PPPPKPPP/RNB4R b kq - 0 8", listener.finalFens.get(0));
+        assertEquals("Wrong final position of the FEN game",
+                "8/3k4/8/4P3/8/8/8/4K3 b - - 0 2", listener.finalFens.get(2));
+    }
+
+    @Test
+    public void testReadFromByteBuffer() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        PgnReader reader = new PgnReader(ByteBuffer.wrap(PGN.getBytes("UTF-8")));
+
+        assertEquals("Wrong number of games", 4, reader.readAll(listener));
+        assertEquals("Buffer and stream should read the same", expectedEvents(), listener.events);
+    }
+
+    @Test
+    public void testOneGameAtATime() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(PGN.getBytes("UTF-8")));
+
+        assertTrue("Should read the first game", reader.readGame(listener));
+        assertEquals("Only one game should be read", 1, reader.getGameCount());
+        assertEquals("The first game should have finished", "finished 1/2-1/2",
+                listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test
+    public void testEmptyInput() throws IOException {
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(new byte[0]));
+        assertFalse("No games in empty input", reader.readGame(new RecordingListener()));
+    }
+
+    @Test
+    public void testEscapeOnlyAtLineStart() throws IOException {
+        RecordingListener listener = new RecordingListener();
+        String pgn = "%escaped line 1. e4\n"
+                + "1. e4 e5 2. Nf3 %not-an-escape Nc6 1-0\n";
+        PgnReader reader = new PgnReader(new ByteArrayInputStream(pgn.getBytes("UTF-8")));
+
+        assertEquals("Wrong number of games", 1, reader.readAll(listener));
+        assertEquals("The escaped line should be skipped", "moves 3", listener.events.get(1));
+        assertTrue("A '%' mid-line should be a bad move: " + listener.events.get(2),
+                listener.events.get(2).startsWith("failed at ply 4: "));
+    }
+
+    private static List<String> expectedEvents() {
+        List<String> events = new ArrayList<String>();
+        events.add("game 1");
+        events.add("tag Event=Casual \"blitz\"");
+        events.add("tag White=Alice");
+        events.add("tag Black=Bob");
+        events.add("tag Result=1/2-1/2");
+        events.add("moves 15");
+        events.add("finished 1/2-1/2");
+        events.add("game 2");
+        events.add("tag Event=Castles");
+        events.add("moves 6");
+        events.add("failed at ply 7: Castling is not supported: O-O");
+        events.add("game 3");
+        events.add("tag Event=From a position");
+        events.add("tag FEN=4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+        events.add("moves 3");
+        events.add("finished *");
+        events.add("game 4");
+        events.add("moves 2");
+        events.add("finished *");
+        return events;
+    }
+
+    /**
+     * Records what it is told, counting moves rather than listing them
+     */
+    private static class RecordingListener implements PgnListener {
+        private final List<String> events = new ArrayList<String>();
+        private final List<String> finalFens = new ArrayList<String>();
+        private int numMoves;
+        private GameState lastState;
+
+        @Override
+        public void gameStarted(long gameNumber) {
+            events.add("game " + gameNumber);
+            numMoves = 0;
+            lastState = null;
+        }
+
+        @Override
+        public void tag(String name, String value) {
+            events.add("tag " + name + "=" + value);
+        }
+
+        @Override
+        public void move(GameState gameState, int move) {
+            assertTrue("Moves should be real", move != Moves.NONE);
+            numMoves++;
+            lastState = gameState;
+        }
+
+        @Override
+        public void gameFinished(String result) {
+            endMoves();
+            events.add("finished " + result);
+        }
+
+        @Override
+        public void gameFailed(int ply, String message) {
+            endMoves();
+            events.add("failed at ply " + ply + ": " + message);
+        }
+
+        private void endMoves() {
+            if (numMoves > 0) {
+                events.add("moves " + numMoves);
+            }
+            finalFens.add(lastState == null ? null : Fen.toFen(lastState));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package chess.pgn;
+
+import chess.Fen;
+import chess.GameState;
+import chess.Moves;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for resolving standard algebraic notation
+ */
+public class SanTest {
+
+    private static final String TWO_KNIGHTS = "4k3/8/8/3p4/4P3/5N2/8/1N2K3 w - - 0 1";
+
+    @Test
+    public void testPawnMoves() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        assertEquals("Wrong pawn push", "e2 e4", Moves.toString(San.resolve(gameState, "e4")));
+        assertEquals("Wrong single step", "d2 d3", Moves.toString(San.resolve(gameState, "d3")));
+
+        gameState = Fen.parse(TWO_KNIGHTS);
+        int capture = San.resolve(gameState, "exd5");
+        assertEquals("Wrong pawn capture", "e4 d5", Moves.toString(capture));
+        assertTrue("Should be marked as a capture", Moves.isCapture(capture));
+    }
+
+    @Test
+    public void testPieceMoves() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        assertEquals("Wrong knight move", "g1 f3", Moves.toString(San.resolve(gameState, "Nf3")));
+        assertEquals("Suffixes should be ignored", "b1 c3", Moves.toString(San.resolve(gameState, "Nc3!?")));
+    }
+
+    @Test
+    public void testDisambiguation() {
+        GameState gameState = Fen.parse(TWO_KNIGHTS);
+        assertEquals("Should pick the b-file knight", "b1 d2", Moves.toString(San.resolve(gameState, "Nbd2")));
+        assertEquals("Should pick the f-file knight", "f3 d2", Moves.toString(San.resolve(gameState, "Nfd2+")));
+        assertEquals("Should pick the knight on rank 3", "f3 d2", Moves.toString(San.resolve(gameState, "N3d2")));
+        assertEquals("Fully specified origin", "b1 d2", Moves.toString(San.resolve(gameState, "Nb1d2")));
+    }
+
+    @Test
+    public void testRejectedMoves() {
+        assertRejected(TWO_KNIGHTS, "Nd2", "Ambiguous");
+        assertRejected(TWO_KNIGHTS, "Qh5", "No legal move");
+        assertRejected(TWO_KNIGHTS, "O-O", "Castling");
+        assertRejected("4k3/P7/8/8/8/8/8/4K3 w - - 0 1", "a8=Q", "Promotion");
+        assertRejected(TWO_KNIGHTS, "hello", "Not a move");
+        assertRejected(TWO_KNIGHTS, "", "Not a move");
+    }
+
+    private static void assertRejected(String fen, String san, String reason) {
+        try {
+            San.resolve(Fen.parse(fen), san);
+            fail("Should reject " + san);
+        } catch (PgnException e) {
+            assertTrue("Wrong reason for rejecting " + san + ": " + e.getMessage(), e.getMessage().startsWith(reason));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package chess.search;
+
+import chess.Fen;
+import chess.GameState;
+import chess.MoveList;
+import chess.Moves;
+import chess.Player;
+import chess.Position;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ordering moves with MVV-LVA, static exchange evaluation and the killer and history heuristics
+ */
+public class MovePickerTest {
+
+    /**
+     * White can take the rook on d5 with a pawn, a knight or a rook, and the knight on f5 with the pawn
+     */
+    private static final String CAPTURES = "4k3/8/8/R2r1n2/4P3/2N5/8/4K3 w - - 0 1";
+
+    @Test
+    public void testCapturesFirstByMvvLva() {
+        List<String> order = drain(new MovePicker(null, null), Fen.parse(CAPTURES), Moves.NONE, 0);
+
+        assertEquals("Pawn takes rook first", "e4 d5", order.get(0));
+        assertEquals("Then knight takes rook", "c3 d5", order.get(1));
+        assertEquals("Then rook takes rook", "a5 d5", order.get(2));
+        assertEquals("Then pawn takes knight", "e4 f5", order.get(3));
+        for (String quiet : order.subList(4, order.size())) {
+            assertFalse("Captures should all come first: " + quiet, quiet.endsWith("d5") || quiet.endsWith("f5"));
+        }
+
+        MovePicker picker = new MovePicker(null, null);
+        assertEquals("Only the captures should be set up", 4, picker.resetCaptures(Fen.parse(CAPTURES)));
+        for (int i = 0; i < 4; i++) {
+            assertEquals("Captures should come in the same order", order.get(i), Moves.toString(picker.next()));
+        }
+        assertEquals("Nothing after the captures", Moves.NONE, picker.next());
+    }
+
+    @Test
+    public void testLosingCapturesLast() {
+        // The Queen can take the pawn on d5, but the pawn on e6 defends it
+        GameState gameState = Fen.parse("4k3/8/4p3/3p4/8/8/8/3QK3 w - - 0 1");
+        MovePicker picker = new MovePicker(null, null);
+        int size = picker.reset(gameState, Moves.NONE, 0);
+
+        for (int i = 0; i < size - 1; i++) {
+            String quiet = Moves.toString(picker.next());
+            assertFalse("Quiet moves should come before the losing capture: " + quiet, quiet.equals("d1 d5"));
+            assertFalse("Quiet moves are not losing captures: " + quiet, picker.isLosingCapture());
+        }
+        assertEquals("The losing capture should come last", "d1 d5", Moves.toString(picker.next()));
+        assertTrue("The capture should be marked as losing", picker.isLosingCapture());
+
+        assertEquals("The capture is still set up for a quiescence search", 1, picker.resetCaptures(gameState));
+        picker.next();
+        assertTrue("The capture should be marked as losing", picker.isLosingCapture());
+    }
+
+    @Test
+    public void testHashMoveFirst() {
+        List<String> order = drain(new MovePicker(null, null), Fen.parse(CAPTURES), move("e1 f2"), 0);
+
+        assertEquals("The hash move should come first", "e1 f2", order.get(0));
+        assertEquals("Then the best capture", "e4 d5", order.get(1));
+
+        order = drain(new MovePicker(null, null), Fen.parse(CAPTURES), move("e1 d2"), 0);
+        assertFalse("An illegal hash move should be ignored", order.contains("e1 d2"));
+        assertEquals("So the best capture comes first", "e4 d5", order.get(0));
+    }
+
+    @Test
+    public void testKillersAfterCaptures() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        KillerTable killers = new KillerTable();
+        killers.store(3, move("b1 c3"));
+        killers.store(3, move("g1 f3"));
+
+        List<String> order = drain(new MovePicker(killers, null), gameState, Moves.NONE, 3);
+        assertEquals("The newest killer first", "g1 f3", order.get(0));
+        assertEquals("Then the older one", "b1 c3", order.get(1));
+
+        List<String> otherPly = drain(new MovePicker(killers, null), gameState, Moves.NONE, 4);
+        assertFalse("Killers only apply at their own ply", "g1 f3".equals(otherPly.get(0)));
+    }
+
+    @Test
+    public void testHistoryOrdersQuietMoves() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        HistoryTable history = new HistoryTable();
+        history.record(Player.White, move("e2 e4"), 3);
+        history.record(Player.White, move("d2 d4"), 5);
+        history.record(Player.Black, move("a2 a4"), 8);
+
+        List<String> order = drain(new MovePicker(null, history), gameState, Moves.NONE, 0);
+        assertEquals("Deepest cutoff first", "d2 d4", order.get(0));
+        assertEquals("Then the shallower one", "e2 e4", order.get(1));
+        assertFalse("Black's history does not apply to White", "a2 a4".equals(order.get(2)));
+    }
+
+    @Test
+    public void testEveryMoveOnce() {
+        GameState gameState = Fen.parse("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1");
+        MoveList generated = new MoveList();
+        int size = gameState.generateMoves(generated);
+
+        MovePicker picker = new MovePicker(new KillerTable(), new HistoryTable());
+        assertEquals("Wrong move count", size, picker.reset(gameState, move("e2 a6"), 0));
+        assertEquals("Wrong picker size", size, picker.size());
+
+        Set<Integer> picked = new HashSet<Integer>();
+        for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+            assertTrue("Move picked twice: " + Moves.toString(move), picked.add(move));
+            assertTrue("Move not legal: " + Moves.toString(move), generated.indexOf(move) >= 0);
+        }
+        assertEquals("Every move should be picked", size, picked.size());
+        assertEquals("Nothing left", Moves.NONE, picker.next());
+    }
+
+    @Test
+    public void testHistoryAging() {
+        HistoryTable history = new HistoryTable();
+        int move = move("e2 e4");
+        history.record(Player.White, move, 10);
+        history.age();
+        assertEquals("Aging should halve scores", 50, history.score(Player.White, move));
+
+        for (int i = 0; i < 1000; i++) {
+            history.record(Player.White, move, 20);
+        }
+        assertTrue("Scores should stay bounded", history.score(Player.White, move) <= HistoryTable.MAX_SCORE);
+
+        history.clear();
+        assertEquals("Clearing should forget", 0, history.score(Player.White, move));
+    }
+
+    private static List<String> drain(MovePicker picker, GameState gameState, int hashMove, int ply) {
+        picker.reset(gameState, hashMove, ply);
+        List<String> order = new ArrayList<String>();
+        for (int move = picker.next(); move != Moves.NONE; move = picker.next()) {
+            order.add(Moves.toString(move));
+        }
+        return order;
+    }
+
+    private static int move(String text) {
+        return Moves.encode(Position.valueOf(text.substring(0, 2)).getIndex(),
+                Position.valueOf(text.substring(3)).getIndex(), 0);
+    }
+}
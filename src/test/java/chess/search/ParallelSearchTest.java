@@ -0,0 +1,68 @@
+package chess.search;
+
+import chess.GameState;
+import chess.Move;
+import chess.Player;
+import chess.pieces.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the Lazy SMP ParallelSearch
+ */
+public class ParallelSearchTest {
+
+    @Test
+    public void testFindsMateInOne() {
+        GameState gameState = new GameState();
+        gameState.placePiece(new King(Player.White), "g1");
+        gameState.placePiece(new Rook(Player.White), "a1");
+        gameState.placePiece(new Rook(Player.White), "b7");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        ParallelSearch search = new ParallelSearch(gameState, 4, new MaterialEvaluator(), new TranspositionTable(1 << 12));
+        search.setMaxDepth(3);
+        SearchResult result = search.search();
+
+        assertEquals("The rook should deliver mate on the back rank", new Move("a1 a8"), result.getBestMove());
+        assertEquals("The score should be a mate in one", Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testNodesAreCountedPerThread() {
+        GameState gameState = new GameState();
+        gameState.reset();
+        long key = gameState.getZobristKey();
+
+        ParallelSearch search = new ParallelSearch(gameState, 3, new MaterialEvaluator(), new TranspositionTable(1 << 12));
+        search.setMaxDepth(3);
+        SearchResult result = search.search();
+
+        long[] threadNodes = search.getThreadNodes();
+        assertEquals("There should be a count for every thread", 3, threadNodes.length);
+
+        long total = 0;
+        for (long nodes : threadNodes) {
+            total += nodes;
+        }
+        assertTrue("The main thread should have searched", threadNodes[0] > 0);
+        assertEquals("The result should report the total over all threads", total, result.getNodes());
+        assertNotNull("There should be a best move", result.getBestMove());
+        assertEquals("The original game should not be touched", key, gameState.getZobristKey());
+    }
+
+    @Test
+    public void testSingleThreadMatchesSearch() {
+        GameState gameState = new GameState();
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new Knight(Player.White), "c3");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Queen(Player.Black), "d5");
+
+        ParallelSearch search = new ParallelSearch(gameState, 1, new MaterialEvaluator(), new TranspositionTable(1 << 10));
+        search.setMaxDepth(2);
+
+        assertEquals("The knight should take the queen", new Move("c3 d5"), search.search().getBestMove());
+    }
+}
@@ -0,0 +1,56 @@
+package chess.search;
+
+import chess.Fen;
+import chess.GameState;
+import chess.Move;
+import chess.board.PieceSquareTables;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the material and piece-square evaluator
+ */
+public class PieceSquareEvaluatorTest {
+
+    private final Evaluator evaluator = new PieceSquareEvaluator();
+
+    @Test
+    public void testStartingPosition() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        assertEquals("The start should be level", 0, evaluator.evaluate(gameState));
+        assertEquals("The start should be all middlegame", PieceSquareTables.TOTAL_PHASE,
+                PieceSquareEvaluator.phase(gameState));
+    }
+
+    @Test
+    public void testScoreIsFromPlayerToMove() {
+        GameState gameState = Fen.parse(Fen.STARTING_POSITION);
+        gameState.makeMove(new Move("e2 e4"));
+        int blackScore = evaluator.evaluate(gameState);
+        assertTrue("A central pawn should be good for White", blackScore < 0);
+
+        gameState.toggleCurrentPlayer();
+        assertEquals("White should see the opposite score", -blackScore, evaluator.evaluate(gameState));
+    }
+
+    @Test
+    public void testCentralKnight() {
+        GameState rim = Fen.parse("4k3/8/8/8/8/8/8/N3K3 w - - 0 1");
+        GameState centre = Fen.parse("4k3/8/8/8/3N4/8/8/4K3 w - - 0 1");
+        assertTrue("A knight is better in the centre", evaluator.evaluate(centre) > evaluator.evaluate(rim));
+        assertTrue("A knight is still worth most of its value on the rim", evaluator.evaluate(rim) > 200);
+    }
+
+    @Test
+    public void testEndgameKing() {
+        GameState corner = Fen.parse("4k3/pppp4/8/8/8/8/PPPP4/6K1 w - - 0 1");
+        GameState centre = Fen.parse("4k3/pppp4/8/8/4K3/8/PPPP4/8 w - - 0 1");
+        assertEquals("Only pawns and kings is all endgame", 0, PieceSquareEvaluator.phase(corner));
+        assertTrue("The King should be active in the endgame", evaluator.evaluate(centre) > evaluator.evaluate(corner));
+
+        GameState home = Fen.parse(Fen.STARTING_POSITION);
+        GameState exposed = Fen.parse("rnbqkbnr/pppppppp/8/8/8/4K3/PPPPPPPP/RNBQ1BNR w kq - 0 1");
+        assertTrue("The King should be sheltered in the middlegame", evaluator.evaluate(home) > evaluator.evaluate(exposed));
+    }
+}
@@ -0,0 +1,128 @@
+package chess.search;
+
+import chess.Fen;
+import chess.GameState;
+import chess.Move;
+import chess.Player;
+import chess.pieces.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the alpha-beta Search
+ */
+public class SearchTest {
+
+    private GameState gameState;
+
+    @Before
+    public void setUp() {
+        gameState = new GameState();
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        gameState.placePiece(new King(Player.White), "g1");
+        gameState.placePiece(new Rook(Player.White), "a1");
+        gameState.placePiece(new Rook(Player.White), "b7");
+        gameState.placePiece(new King(Player.Black), "h8");
+
+        Search search = new Search(gameState);
+        search.setMaxDepth(3);
+        SearchResult result = search.search();
+
+        assertEquals("The rook should deliver mate on the back rank", new Move("a1 a8"), result.getBestMove());
+        assertEquals("The score should be a mate in one", Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testWinsMaterial() {
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new Knight(Player.White), "c3");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Queen(Player.Black), "d5");
+
+        Search search = new Search(gameState);
+        search.setMaxDepth(2);
+        SearchResult result = search.search();
+
+        assertEquals("The knight should take the queen", new Move("c3 d5"), result.getBestMove());
+        assertEquals("Wrong search depth", 2, result.getDepth());
+        assertEquals("The principal variation should cover both plies", 2, result.getPrincipalVariation().size());
+    }
+
+    @Test
+    public void testQuiescenceSeesRecapture() {
+        gameState.placePiece(new King(Player.White), "g1");
+        gameState.placePiece(new Queen(Player.White), "d1");
+        gameState.placePiece(new King(Player.Black), "g8");
+        gameState.placePiece(new Pawn(Player.Black), "d5");
+        gameState.placePiece(new Pawn(Player.Black), "e6");
+
+        Search search = new Search(gameState);
+        search.setMaxDepth(1);
+        SearchResult result = search.search();
+
+        assertFalse("The queen should not take a defended pawn", new Move("d1 d5").equals(result.getBestMove()));
+        assertEquals("White should keep the queen for two pawns", 900 - 200, result.getScore());
+    }
+
+    @Test
+    public void testPositionIsRestored() {
+        gameState.reset();
+        long key = gameState.getZobristKey();
+
+        Search search = new Search(gameState);
+        search.setMaxDepth(3);
+        search.search();
+
+        assertEquals("White should be to move again", Player.White, gameState.getCurrentPlayer());
+        assertEquals("The position should be unchanged", key, gameState.getZobristKey());
+    }
+
+    @Test
+    public void testNodeLimit() {
+        gameState.reset();
+
+        Search search = new Search(gameState);
+        search.setNodeLimit(500);
+        SearchResult result = search.search();
+
+        assertTrue("The search should respect the node budget", result.getNodes() <= 500);
+        assertNotNull("The search should still recommend a move", result.getBestMove());
+    }
+
+    @Test
+    public void testOrderingSavesNodes() {
+        gameState = Fen.parse("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3");
+
+        Search plain = new Search(gameState.copy());
+        plain.setKillerTable(null);
+        plain.setHistoryTable(null);
+        plain.setMaxDepth(4);
+        SearchResult plainResult = plain.search();
+
+        Search ordered = new Search(gameState.copy());
+        ordered.setMaxDepth(4);
+        SearchResult orderedResult = ordered.search();
+
+        assertEquals("Ordering should not change the score", plainResult.getScore(), orderedResult.getScore());
+        assertTrue("Killer and history moves should prune more: " + orderedResult.getNodes() + " vs "
+                + plainResult.getNodes(), orderedResult.getNodes() < plainResult.getNodes());
+    }
+
+    @Test
+    public void testStalemateScoresZero() {
+        gameState.placePiece(new King(Player.White), "a1");
+        gameState.placePiece(new King(Player.Black), "h8");
+        gameState.placePiece(new Rook(Player.Black), "b8");
+        gameState.placePiece(new Rook(Player.Black), "h2");
+
+        SearchResult result = new Search(gameState).search();
+
+        assertNull("There is no move to make", result.getBestMove());
+        assertEquals("Stalemate is a draw", 0, result.getScore());
+    }
+}
@@ -0,0 +1,68 @@
+package chess.search;
+
+import chess.Moves;
+import chess.Position;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the TranspositionTable
+ */
+public class TranspositionTableTest {
+
+    private TranspositionTable table;
+
+    @Before
+    public void setUp() {
+        table = new TranspositionTable(16);
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        table.store(1234L, move("e2 e4"), TranspositionTable.EXACT, 5, -37);
+
+        long entry = table.probe(1234L);
+        assertFalse("The entry should be found", entry == 0);
+        assertEquals("Wrong move", move("e2 e4"), TranspositionTable.packedMoveOf(entry));
+        assertEquals("Wrong bound", TranspositionTable.EXACT, TranspositionTable.boundOf(entry));
+        assertEquals("Wrong depth", 5, TranspositionTable.depthOf(entry));
+        assertEquals("Wrong score", -37, TranspositionTable.scoreOf(entry));
+    }
+
+    @Test
+    public void testDifferentKeyMisses() {
+        table.store(1234L, Moves.NONE, TranspositionTable.LOWER_BOUND, 3, 10);
+
+        assertEquals("A key sharing the slot should not match", 0, table.probe(1234L + 16));
+        assertEquals("No move was stored", Moves.NONE, TranspositionTable.packedMoveOf(table.probe(1234L)));
+    }
+
+    @Test
+    public void testShallowerSearchDoesNotReplace() {
+        table.store(99L, move("d2 d4"), TranspositionTable.EXACT, 6, 20);
+        table.store(99L, move("c2 c4"), TranspositionTable.EXACT, 2, 50);
+
+        assertEquals("The deeper result should be kept", 6, TranspositionTable.depthOf(table.probe(99L)));
+
+        table.store(99L + 16, move("c2 c4"), TranspositionTable.EXACT, 1, 50);
+        assertEquals("Other positions always replace", 0, table.probe(99L));
+    }
+
+    @Test
+    public void testMateScoresAreRelativeToThePosition() {
+        int score = Search.MATE - 7;
+        int stored = TranspositionTable.scoreToTable(score, 3);
+
+        assertEquals("The mate is 4 plies from the position", Search.MATE - 4, stored);
+        assertEquals("The score should come back relative to a new ply", Search.MATE - 5,
+                TranspositionTable.scoreFromTable(stored, 1));
+        assertEquals("Ordinary scores are unchanged", 120, TranspositionTable.scoreToTable(120, 9));
+    }
+
+    private static int move(String text) {
+        return Moves.encode(Position.valueOf(text.substring(0, 2)).getIndex(),
+                Position.valueOf(text.substring(3)).getIndex(), 0);
+    }
+}